@@ -0,0 +1,38 @@
+package Benchmarks;
+
+import GameEngine.Autopilot;
+import GameEngine.Direction;
+import GameEngine.SnakeEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// decisions per second of the autopilot, up to a snake covering almost the whole 80x50 board
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AutopilotBenchmark {
+
+    @Param({"1", "100", "1000", "2000", "3990"})
+    public int length;
+
+    private BoardFixture fixture;
+    private SnakeEngine engine;
+    private Autopilot autopilot;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        fixture = BoardFixture.standard();
+        engine = new SnakeEngine(fixture.width, fixture.height, 42L);
+        autopilot = new Autopilot(fixture.width, fixture.height);
+        fixture.place(engine, length);
+    }
+
+    @Benchmark
+    public Direction decide() {
+        return autopilot.decide(engine);
+    }
+}
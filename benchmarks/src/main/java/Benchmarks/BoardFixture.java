@@ -0,0 +1,74 @@
+package Benchmarks;
+
+import GameEngine.Direction;
+import GameEngine.SnakeEngine;
+
+// a Hamiltonian cycle over the board, so a snake of any length can follow it forever without biting itself
+public class BoardFixture {
+    public final int width;
+    public final int height;
+    public final int[] cycle; // cells in visiting order
+    public final Direction[] next; // direction to leave each cell along the cycle
+
+    public BoardFixture(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.cycle = new int[width * height];
+        this.next = new Direction[width * height];
+
+        // snake through rows 1..height-1 column by column, then come back along row 0
+        int n = 0;
+        for (int x = 0; x < width; x++) {
+            if (x % 2 == 0) {
+                for (int y = 1; y < height; y++) {
+                    cycle[n++] = cell(x, y);
+                }
+            } else {
+                for (int y = height - 1; y >= 1; y--) {
+                    cycle[n++] = cell(x, y);
+                }
+            }
+        }
+        for (int x = width - 1; x >= 0; x--) {
+            cycle[n++] = cell(x, 0);
+        }
+        for (int i = 0; i < cycle.length; i++) {
+            next[cycle[i]] = between(cycle[i], cycle[(i + 1) % cycle.length]);
+        }
+    }
+
+    public static BoardFixture standard() {
+        return new BoardFixture(SnakeEngine.DEFAULT_WIDTH, SnakeEngine.DEFAULT_HEIGHT);
+    }
+
+    public int cell(int x, int y) {
+        return x * height + y;
+    }
+
+    // body cells head first for a snake of the given length lying on the start of the cycle
+    public int[] body(int length) {
+        int[] cells = new int[length];
+        for (int i = 0; i < length; i++) {
+            cells[i] = cycle[length - 1 - i];
+        }
+        return cells;
+    }
+
+    public void place(SnakeEngine engine, int length) {
+        int[] cells = body(length);
+        engine.placeSnake(cells, length, length > 1 ? between(cells[1], cells[0]) : next[cells[0]]);
+    }
+
+    private Direction between(int from, int to) {
+        int dx = to / height - from / height;
+        int dy = to % height - from % height;
+        if (dx == 1) {
+            return Direction.RIGHT;
+        } else if (dx == -1) {
+            return Direction.LEFT;
+        } else if (dy == 1) {
+            return Direction.DOWN;
+        }
+        return Direction.UP;
+    }
+}
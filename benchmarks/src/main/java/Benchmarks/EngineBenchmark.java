@@ -0,0 +1,41 @@
+package Benchmarks;
+
+import GameEngine.Direction;
+import GameEngine.SnakeEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// a full engine tick (input, move, collision, occasional spawn) at different snake lengths
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+
+    @Param({"1", "10", "100", "1000", "2000", "3000"})
+    public int length;
+
+    private BoardFixture fixture;
+    private SnakeEngine engine;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        fixture = BoardFixture.standard();
+        engine = new SnakeEngine(fixture.width, fixture.height, 42L);
+        fixture.place(engine, length);
+    }
+
+    @Benchmark
+    public boolean tick() {
+        Direction d = fixture.next[engine.getSnake().headCell()];
+        boolean alive = engine.step(d);
+        // eating makes the snake grow, start over before the length drifts too far
+        if (!alive || engine.getSnake().length() > length + 50) {
+            fixture.place(engine, length);
+        }
+        return alive;
+    }
+}
@@ -0,0 +1,68 @@
+package Benchmarks;
+
+import GameEngine.GameRandom;
+import GameEngine.SnakeEngine;
+import GameEngine.SnakeEnv;
+import GameEngine.VectorSnakeEnv;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+// environment steps per second the way a trainer uses them: step, then read the observation
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnvBenchmark {
+    private static final int ENVS = 64;
+    private static final int BOARD_WIDTH = SnakeEngine.DEFAULT_WIDTH;
+    private static final int BOARD_HEIGHT = SnakeEngine.DEFAULT_HEIGHT;
+
+    private SnakeEnv env;
+    private VectorSnakeEnv vectorEnv;
+    private ByteBuffer observation;
+    private ByteBuffer observations;
+    private int[] actions;
+    private float[] rewards;
+    private boolean[] dones;
+    private GameRandom random;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        random = new GameRandom(42);
+        env = new SnakeEnv(BOARD_WIDTH, BOARD_HEIGHT);
+        env.reset(42);
+        observation = ByteBuffer.allocateDirect(env.getObservationSize());
+        vectorEnv = new VectorSnakeEnv(ENVS, BOARD_WIDTH, BOARD_HEIGHT);
+        vectorEnv.reset(42);
+        observations = ByteBuffer.allocateDirect(ENVS * vectorEnv.getObservationSize());
+        actions = new int[ENVS];
+        rewards = new float[ENVS];
+        dones = new boolean[ENVS];
+    }
+
+    @Benchmark
+    public float step() {
+        float reward = env.step(random.nextInt(SnakeEnv.ACTION_COUNT));
+        if (env.isDone()) {
+            env.reset();
+        }
+        env.writeObservation(observation, 0);
+        return reward;
+    }
+
+    // one op is a step of all 64 environments
+    @Benchmark
+    @OperationsPerInvocation(ENVS)
+    public ByteBuffer vectorStep() {
+        for (int i = 0; i < ENVS; i++) {
+            actions[i] = random.nextInt(SnakeEnv.ACTION_COUNT);
+        }
+        vectorEnv.step(actions, rewards, dones);
+        vectorEnv.writeObservations(observations, 0);
+        return observations;
+    }
+}
@@ -0,0 +1,63 @@
+package Benchmarks;
+
+import GameEngine.GameRandom;
+import GameEngine.OccupancyGrid;
+import GameEngine.SnakeBody;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// the tick building blocks on their own, up to an almost full 80x50 board
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GridBenchmark {
+
+    @Param({"1", "10", "100", "1000", "3000", "3999"})
+    public int length;
+
+    private BoardFixture fixture;
+    private OccupancyGrid grid;
+    private SnakeBody body;
+    private GameRandom random;
+    private int position; // index of the head on the cycle
+    private int probe;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        fixture = BoardFixture.standard();
+        grid = new OccupancyGrid(fixture.width, fixture.height);
+        body = new SnakeBody(fixture.width * fixture.height);
+        random = new GameRandom(42);
+        for (int i = 0; i < length; i++) {
+            body.pushHead(fixture.cycle[i]);
+            grid.occupy(fixture.cycle[i]);
+        }
+        position = length - 1;
+    }
+
+    // push the new head and pop the tail, what moveSnake does every tick
+    @Benchmark
+    public int moveSnake() {
+        position = (position + 1) % fixture.cycle.length;
+        grid.release(body.popTail());
+        int head = fixture.cycle[position];
+        body.pushHead(head);
+        grid.occupy(head);
+        return head;
+    }
+
+    @Benchmark
+    public boolean checkCollision() {
+        probe = (probe + 1) % fixture.cycle.length;
+        return grid.isOccupied(fixture.cycle[probe]);
+    }
+
+    @Benchmark
+    public int spawn() {
+        return grid.randomFreeCell(random);
+    }
+}
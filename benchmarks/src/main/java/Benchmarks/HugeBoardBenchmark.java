@@ -0,0 +1,49 @@
+package Benchmarks;
+
+import GameEngine.Direction;
+import GameEngine.SnakeEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// a full engine tick on boards from the standard size up to 10000x10000, the cost should follow the snake, not the area
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HugeBoardBenchmark {
+
+    @Param({"80", "1000", "10000"})
+    public int size;
+
+    @Param({"10", "1000"})
+    public int length;
+
+    private SnakeEngine engine;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        engine = new SnakeEngine(size, size, 42L);
+        startGame();
+    }
+
+    // snake laid out along row 0, heading right so it wraps around the board
+    private void startGame() {
+        int body = Math.min(length, size - 1);
+        int[] cells = new int[body];
+        for (int i = 0; i < body; i++) {
+            cells[i] = (body - 1 - i) * size; // column major, head first
+        }
+        engine.placeSnake(cells, body, Direction.RIGHT);
+    }
+
+    @Benchmark
+    public boolean step() {
+        if (!engine.step(null)) {
+            startGame();
+        }
+        return engine.isGameOver();
+    }
+}
@@ -0,0 +1,58 @@
+package Benchmarks;
+
+import MainGame.GameBoard;
+import MainGame.ScorePanel;
+import org.openjdk.jmh.annotations.*;
+
+import javax.swing.RepaintManager;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+// GameBoard painting into an offscreen image, a full frame and a typical one-tick damage region
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class PaintBenchmark {
+
+    @Param({"1", "100", "1000", "3000"})
+    public int length;
+
+    private GameBoard board;
+    private BufferedImage image;
+    private Graphics2D graphics;
+
+    @Setup
+    public void setUp() {
+        board = new GameBoard(new ScorePanel(), null);
+        board.setPaused(true); // no timer ticks while measuring
+        board.setSize(board.getPreferredSize());
+        RepaintManager.currentManager(board).setDoubleBufferingEnabled(false);
+        BoardFixture.standard().place(board.getEngine(), length);
+
+        image = new BufferedImage(board.getWidth(), board.getHeight(), BufferedImage.TYPE_INT_RGB);
+        graphics = image.createGraphics();
+    }
+
+    @TearDown
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage fullFrame() {
+        graphics.setClip(0, 0, board.getWidth(), board.getHeight());
+        board.paint(graphics);
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage damagedCells() {
+        graphics.setClip(400, 250, 30, 30);
+        board.paint(graphics);
+        return image;
+    }
+}
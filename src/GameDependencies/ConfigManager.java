@@ -1,48 +1,227 @@
 package GameDependencies;
 import java.io.*;
+import java.nio.file.*;
 import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.awt.Color;
 import MainGame.*;
 
 public class ConfigManager {
     private static final String CONFIG_FILE = "config.properties";
+    private static final long SAVE_DELAY_MS = 500; // changes within this window are written together
+    private static final long WATCH_STOP_MS = 1000; // how long close() waits for the watcher to finish a reload
+    private static final long WRITER_DRAIN_MS = 5000; // how long the JVM waits at exit for queued writes
+
+    // one background writer for every ConfigManager, so saving never touches the disk on the caller's thread
+    private static final ScheduledExecutorService WRITER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "Config writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        // one hook for every manager: writes still waiting for their delay run before the JVM exits
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            WRITER.shutdown(); // delayed writes still run after shutdown
+            try {
+                WRITER.awaitTermination(WRITER_DRAIN_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }, "Config flush"));
+    }
+
     private Properties properties;
+    private final Path configPath;
+    private final AtomicBoolean savePending = new AtomicBoolean(false);
+    private volatile GameConfig config; // rebuilt whenever a value changes
+    private Thread watchThread;
+    private WatchService watchService;
+    private final Object fileLock = new Object(); // orders writes of this file, never held together with this
 
     public ConfigManager() {
+        this(Paths.get(CONFIG_FILE));
+    }
+
+    public ConfigManager(Path configPath) {
+        this.configPath = configPath;
         properties = new Properties();
         loadProperties();
+        config = GameConfig.fromProperties(properties);
     }
 
     private void loadProperties() {
-        try (InputStream input = new FileInputStream(CONFIG_FILE)) {
+        try (InputStream input = Files.newInputStream(configPath)) {
             properties.load(input);
         } catch (IOException ex) {
             System.out.println("Config file not found, creating a new one.");
         }
     }
 
+    // the current values, cheap enough to call on every tick
+    public GameConfig getConfig() {
+        return config;
+    }
+
+    // reload config.properties whenever it changes on disk, e.g. edited by hand while the game runs
+    public synchronized void startWatching(Consumer<GameConfig> onChange) {
+        if (watchThread != null) {
+            return;
+        }
+        Path directory = configPath.toAbsolutePath().getParent();
+        try {
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException ex) {
+            System.out.println("Config hot reload unavailable: " + ex.getMessage());
+            return;
+        }
+        WatchService service = watchService;
+        watchThread = new Thread(() -> watchLoop(service, onChange), "Config watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    private void watchLoop(WatchService watchService, Consumer<GameConfig> onChange) {
+        Path fileName = configPath.getFileName();
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean touched = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (fileName.equals(event.context())) {
+                        touched = true;
+                    }
+                }
+                key.reset();
+                if (touched && !savePending.get()) {
+                    GameConfig previous = config;
+                    reload();
+                    // our own writes come back here too, only report real changes
+                    if (!config.equals(previous)) {
+                        onChange.accept(config);
+                    }
+                }
+            }
+        } catch (ClosedWatchServiceException ex) {
+            // stopped by close()
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // the file is read before taking the lock, so the EDT's setters never wait on the disk
+    private void reload() {
+        Properties loaded = new Properties();
+        try (InputStream input = Files.newInputStream(configPath)) {
+            loaded.load(input);
+        } catch (IOException ex) {
+            return; // mid-rename or deleted, the next event will catch up
+        }
+        synchronized (this) {
+            properties = loaded;
+            config = GameConfig.fromProperties(properties);
+        }
+    }
+
+    // queue a write of the current properties, bursts of calls end up as a single write
     public void saveProperties() {
-        try (OutputStream output = new FileOutputStream(CONFIG_FILE)) {
-            properties.store(output, null);
+        if (savePending.compareAndSet(false, true)) {
+            try {
+                WRITER.schedule(this::writeIfPending, SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException ex) {
+                writeIfPending(); // changed while the JVM exits, after the writer has drained
+            }
+        }
+    }
+
+    // write pending changes right away on the calling thread
+    public void flush() {
+        writeIfPending();
+    }
+
+    // stop watching and queue what is pending for the writer, call when the board using this manager goes away
+    public void close() {
+        Thread watcher;
+        synchronized (this) {
+            watcher = watchThread;
+            if (watchService != null) {
+                try {
+                    watchService.close(); // wakes the watcher out of take()
+                } catch (IOException ignored) {
+                    // closing anyway
+                }
+                watchService = null;
+            }
+        }
+        if (watcher != null && watcher != Thread.currentThread()) {
+            try {
+                watcher.join(WATCH_STOP_MS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // the last write goes to the writer thread like any other, the exit hook waits for it
+        try {
+            WRITER.execute(this::writeIfPending);
+        } catch (RejectedExecutionException ex) {
+            writeIfPending(); // the JVM is already exiting, so this is not the EDT's time being spent
+        }
+    }
+
+    // copy under the lock, then write and rename without it so setters on the EDT never wait for the disk
+    private void writeIfPending() {
+        Properties snapshot = new Properties();
+        synchronized (this) {
+            if (!savePending.getAndSet(false)) {
+                return;
+            }
+            // later changes schedule another write, so a copy taken now is enough
+            snapshot.putAll(properties);
+        }
+        synchronized (fileLock) {
+            write(snapshot);
+        }
+    }
+
+    private void write(Properties snapshot) {
+        Path tempFile = configPath.resolveSibling(configPath.getFileName() + ".tmp");
+        try {
+            try (OutputStream output = Files.newOutputStream(tempFile)) {
+                snapshot.store(output, null);
+            }
+            try {
+                Files.move(tempFile, configPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tempFile, configPath, StandardCopyOption.REPLACE_EXISTING);
+            }
         } catch (IOException ex) {
             ex.printStackTrace();
         }
     }
 
-    public void setHighScore(int score) {
+    public synchronized void setHighScore(int score) {
         properties.setProperty("highscore", String.valueOf(score));
+        config = new GameConfig(score, config.getSnakeColor(), config.getBoardWidth(), config.getBoardHeight(),
+                config.getFoodWeight(), config.getPowerUpWeights());
     }
 
     public int getHighScore() {
-        return Integer.parseInt(properties.getProperty("highscore", "0"));
+        return config.getHighScore();
     }
 
-    public void setSnakeColor(Color color) {
+    public synchronized void setSnakeColor(Color color) {
         properties.setProperty("snakeColor", String.format("#%02x%02x%02x", color.getRed(), color.getGreen(), color.getBlue()));
+        config = new GameConfig(config.getHighScore(), new Color(color.getRGB()), config.getBoardWidth(), config.getBoardHeight(),
+                config.getFoodWeight(), config.getPowerUpWeights());
     }
 
     public Color getSnakeColor() {
-        String colorStr = properties.getProperty("snakeColor", "#00ff00");
-        return Color.decode(colorStr);
+        return config.getSnakeColor();
     }
-}
\ No newline at end of file
+}
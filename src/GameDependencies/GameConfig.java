@@ -0,0 +1,139 @@
+package GameDependencies;
+
+import GameEngine.PowerUpType;
+import GameEngine.SnakeEngine;
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Properties;
+
+// immutable, already parsed view of config.properties so reads are plain field loads
+public final class GameConfig {
+    public static final Color DEFAULT_SNAKE_COLOR = Color.GREEN;
+    public static final int DEFAULT_BOARD_WIDTH = 80;
+    public static final int DEFAULT_BOARD_HEIGHT = 50;
+    public static final int MIN_BOARD_SIZE = 10;
+    public static final int MAX_BOARD_SIZE = 10_000;
+
+    private final int highScore;
+    private final Color snakeColor;
+    private final int boardWidth;
+    private final int boardHeight;
+    private final int foodWeight;
+    private final int[] powerUpWeights; // by PowerUpType ordinal
+
+    public GameConfig(int highScore, Color snakeColor) {
+        this(highScore, snakeColor, DEFAULT_BOARD_WIDTH, DEFAULT_BOARD_HEIGHT);
+    }
+
+    public GameConfig(int highScore, Color snakeColor, int boardWidth, int boardHeight) {
+        this(highScore, snakeColor, boardWidth, boardHeight, SnakeEngine.DEFAULT_FOOD_WEIGHT, defaultPowerUpWeights());
+    }
+
+    public GameConfig(int highScore, Color snakeColor, int boardWidth, int boardHeight, int foodWeight, int[] powerUpWeights) {
+        this.highScore = highScore;
+        this.snakeColor = snakeColor;
+        this.boardWidth = boardWidth;
+        this.boardHeight = boardHeight;
+        this.foodWeight = foodWeight;
+        this.powerUpWeights = powerUpWeights.clone();
+    }
+
+    private static int[] defaultPowerUpWeights() {
+        PowerUpType[] types = PowerUpType.values();
+        int[] weights = new int[types.length];
+        for (PowerUpType type : types) {
+            weights[type.ordinal()] = type.getDefaultWeight();
+        }
+        return weights;
+    }
+
+    // bad values fall back to the defaults instead of failing the game
+    static GameConfig fromProperties(Properties properties) {
+        int highScore = 0;
+        try {
+            highScore = Integer.parseInt(properties.getProperty("highscore", "0").trim());
+        } catch (NumberFormatException ex) {
+            System.out.println("Invalid highscore in config, using 0.");
+        }
+        Color snakeColor = DEFAULT_SNAKE_COLOR;
+        try {
+            snakeColor = Color.decode(properties.getProperty("snakeColor", "#00ff00").trim());
+        } catch (NumberFormatException ex) {
+            System.out.println("Invalid snakeColor in config, using the default.");
+        }
+        int boardWidth = boardSize(properties, "boardWidth", DEFAULT_BOARD_WIDTH);
+        int boardHeight = boardSize(properties, "boardHeight", DEFAULT_BOARD_HEIGHT);
+        // spawnWeight.food and spawnWeight.<power-up id>, e.g. spawnWeight.speed=10
+        int foodWeight = weight(properties, "spawnWeight.food", SnakeEngine.DEFAULT_FOOD_WEIGHT);
+        int[] powerUpWeights = defaultPowerUpWeights();
+        for (PowerUpType type : PowerUpType.values()) {
+            powerUpWeights[type.ordinal()] = weight(properties, "spawnWeight." + type.getId(), type.getDefaultWeight());
+        }
+        return new GameConfig(highScore, snakeColor, boardWidth, boardHeight, foodWeight, powerUpWeights);
+    }
+
+    private static int weight(Properties properties, String key, int fallback) {
+        try {
+            return Math.max(0, Integer.parseInt(properties.getProperty(key, String.valueOf(fallback)).trim()));
+        } catch (NumberFormatException ex) {
+            System.out.println("Invalid " + key + " in config, using " + fallback + ".");
+            return fallback;
+        }
+    }
+
+    private static int boardSize(Properties properties, String key, int fallback) {
+        try {
+            int size = Integer.parseInt(properties.getProperty(key, String.valueOf(fallback)).trim());
+            return Math.max(MIN_BOARD_SIZE, Math.min(MAX_BOARD_SIZE, size));
+        } catch (NumberFormatException ex) {
+            System.out.println("Invalid " + key + " in config, using " + fallback + ".");
+            return fallback;
+        }
+    }
+
+    public int getHighScore() {
+        return highScore;
+    }
+
+    public Color getSnakeColor() {
+        return snakeColor;
+    }
+
+    // board size in cells, read when a game board is created
+    public int getBoardWidth() {
+        return boardWidth;
+    }
+
+    public int getBoardHeight() {
+        return boardHeight;
+    }
+
+    // spawn odds, applied when a new game starts
+    public int getFoodWeight() {
+        return foodWeight;
+    }
+
+    public int[] getPowerUpWeights() {
+        return powerUpWeights.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof GameConfig)) {
+            return false;
+        }
+        GameConfig other = (GameConfig) o;
+        return highScore == other.highScore && snakeColor.equals(other.snakeColor)
+                && boardWidth == other.boardWidth && boardHeight == other.boardHeight
+                && foodWeight == other.foodWeight && Arrays.equals(powerUpWeights, other.powerUpWeights);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(highScore, snakeColor, boardWidth, boardHeight, foodWeight, Arrays.hashCode(powerUpWeights));
+    }
+}
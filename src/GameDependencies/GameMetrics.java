@@ -0,0 +1,324 @@
+package GameDependencies;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.awt.EventQueue;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+// tick, timer, paint, frame, event queue, input and allocation timings for the game on the EDT or a render loop
+// the board checks isEnabled() before taking any timestamp, so switched off it costs one field read per call site
+public class GameMetrics implements GameMetricsMBean {
+    private static final String OBJECT_NAME = "Snake:type=GameMetrics";
+    private static final long PROBE_INTERVAL_MS = 100; // how often the event queue lag is sampled
+
+    private final LatencyHistogram tickNanos = new LatencyHistogram();
+    private final LatencyHistogram intervalNanos = new LatencyHistogram();
+    private final LatencyHistogram paintNanos = new LatencyHistogram();
+    private final LatencyHistogram frameNanos = new LatencyHistogram(); // time between frames of an active render loop
+    private final LatencyHistogram edtLagNanos = new LatencyHistogram();
+    private final LatencyHistogram inputLatencyNanos = new LatencyHistogram();
+    private final LatencyHistogram allocatedBytes = new LatencyHistogram();
+
+    private volatile boolean enabled;
+    private volatile int configuredIntervalMillis;
+    private volatile long windowStartNanos = System.nanoTime();
+    private final AtomicLong allocatedTotal = new AtomicLong();
+    private final AtomicLong droppedTurns = new AtomicLong(); // key presses lost to a full input queue
+    private volatile Thread probe;
+    private volatile boolean restartClock = true; // set from any thread, handled by the next tick
+
+    // EDT side, previous tick start and the thread's allocation counter at that point
+    private long lastTickStart = 0;
+    private long lastAllocated = -1;
+    private final com.sun.management.ThreadMXBean threads;
+
+    public GameMetrics(boolean enabled) {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        this.threads = bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()
+                ? (com.sun.management.ThreadMXBean) bean : null;
+        setEnabled(enabled);
+    }
+
+    // publish under Snake:type=GameMetrics, replacing the bean of a previous board
+    public void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (Exception ex) {
+            System.out.println("Metrics not available over JMX: " + ex.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public synchronized void setEnabled(boolean enabled) {
+        if (this.enabled == enabled) {
+            return;
+        }
+        this.enabled = enabled;
+        if (enabled) {
+            reset();
+            startProbe();
+        } else {
+            probe = null; // the probe thread sees it is no longer current and stops
+        }
+    }
+
+    // a daemon thread posts a timestamp to the event queue, the time until it runs is how far the EDT is behind
+    private void startProbe() {
+        Thread thread = new Thread(() -> {
+            while (enabled && probe == Thread.currentThread()) {
+                long posted = System.nanoTime();
+                EventQueue.invokeLater(() -> edtLagNanos.record(System.nanoTime() - posted));
+                try {
+                    Thread.sleep(PROBE_INTERVAL_MS);
+                } catch (InterruptedException ex) {
+                    return;
+                }
+            }
+        }, "Metrics EDT probe");
+        thread.setDaemon(true);
+        probe = thread;
+        thread.start();
+    }
+
+    @Override
+    public void reset() {
+        tickNanos.reset();
+        intervalNanos.reset();
+        paintNanos.reset();
+        frameNanos.reset();
+        edtLagNanos.reset();
+        inputLatencyNanos.reset();
+        allocatedBytes.reset();
+        allocatedTotal.set(0);
+        droppedTurns.set(0);
+        windowStartNanos = System.nanoTime();
+        restartTickClock();
+    }
+
+    public void setConfiguredInterval(int millis) {
+        configuredIntervalMillis = millis;
+        restartTickClock();
+    }
+
+    // the next tick doesn't count towards the interval, e.g. after a pause or a restart
+    public void restartTickClock() {
+        restartClock = true;
+    }
+
+    // the ticking thread only, called as a tick starts with the System.nanoTime() it was read at
+    public void tickStarted(long now) {
+        if (restartClock) {
+            restartClock = false;
+            lastTickStart = 0;
+            lastAllocated = -1;
+        }
+        if (lastTickStart != 0) {
+            intervalNanos.record(now - lastTickStart);
+        }
+        lastTickStart = now;
+        if (threads != null) {
+            long allocated = threads.getCurrentThreadAllocatedBytes();
+            if (lastAllocated >= 0) {
+                // everything the ticking thread allocated since the last tick, painting and input included
+                allocatedBytes.record(allocated - lastAllocated);
+                allocatedTotal.addAndGet(allocated - lastAllocated);
+            }
+            lastAllocated = allocated;
+        }
+    }
+
+    public void recordTick(long nanos) {
+        tickNanos.record(nanos);
+    }
+
+    public void recordPaint(long nanos) {
+        paintNanos.record(nanos);
+    }
+
+    public void recordFrame(long nanos) {
+        frameNanos.record(nanos);
+    }
+
+    public void recordInputLatency(long nanos) {
+        inputLatencyNanos.record(nanos);
+    }
+
+    public void recordDroppedTurn() {
+        droppedTurns.incrementAndGet();
+    }
+
+    // text for the in-game overlay, built on demand so the caller decides how often to pay for it
+    // the frame line only shows up once a render loop records frames
+    public String[] overlayLines() {
+        String[] lines = {
+                "tick     " + line(tickNanos, 1000, "us") + String.format(" %.1f/s", getTicksPerSecond()),
+                "interval " + line(intervalNanos, 1_000_000, "ms") + " (set " + configuredIntervalMillis + ")",
+                "paint    " + line(paintNanos, 1000, "us"),
+                "edt lag  " + line(edtLagNanos, 1000, "us"),
+                "input    " + line(inputLatencyNanos, 1_000_000, "ms") + ", " + droppedTurns.get() + " dropped",
+                "alloc    " + line(allocatedBytes, 1, "B/tick") + String.format(" %.2f MB/s", getAllocationRateMBPerSecond()),
+                null
+        };
+        if (frameNanos.getCount() == 0) {
+            return Arrays.copyOf(lines, lines.length - 1);
+        }
+        lines[lines.length - 1] = "frame    " + line(frameNanos, 1000, "us") + String.format(" %.1f fps", getFramesPerSecond());
+        return lines;
+    }
+
+    private static String line(LatencyHistogram histogram, long unit, String suffix) {
+        return histogram.getPercentile(50) / unit + " / " + histogram.getPercentile(99) / unit + " / "
+                + histogram.getMax() / unit + " " + suffix;
+    }
+
+    @Override
+    public long getTickCount() {
+        return tickNanos.getCount();
+    }
+
+    @Override
+    public long getTickP50Micros() {
+        return tickNanos.getPercentile(50) / 1000;
+    }
+
+    @Override
+    public long getTickP99Micros() {
+        return tickNanos.getPercentile(99) / 1000;
+    }
+
+    @Override
+    public long getTickMaxMicros() {
+        return tickNanos.getMax() / 1000;
+    }
+
+    @Override
+    public int getConfiguredIntervalMillis() {
+        return configuredIntervalMillis;
+    }
+
+    @Override
+    public long getIntervalP50Micros() {
+        return intervalNanos.getPercentile(50) / 1000;
+    }
+
+    @Override
+    public long getIntervalP99Micros() {
+        return intervalNanos.getPercentile(99) / 1000;
+    }
+
+    @Override
+    public long getIntervalMaxMicros() {
+        return intervalNanos.getMax() / 1000;
+    }
+
+    @Override
+    public long getPaintP50Micros() {
+        return paintNanos.getPercentile(50) / 1000;
+    }
+
+    @Override
+    public long getPaintP99Micros() {
+        return paintNanos.getPercentile(99) / 1000;
+    }
+
+    @Override
+    public long getPaintMaxMicros() {
+        return paintNanos.getMax() / 1000;
+    }
+
+    @Override
+    public long getEdtLagP50Micros() {
+        return edtLagNanos.getPercentile(50) / 1000;
+    }
+
+    @Override
+    public long getEdtLagP99Micros() {
+        return edtLagNanos.getPercentile(99) / 1000;
+    }
+
+    @Override
+    public long getEdtLagMaxMicros() {
+        return edtLagNanos.getMax() / 1000;
+    }
+
+    @Override
+    public long getInputLatencyP50Micros() {
+        return inputLatencyNanos.getPercentile(50) / 1000;
+    }
+
+    @Override
+    public long getInputLatencyP99Micros() {
+        return inputLatencyNanos.getPercentile(99) / 1000;
+    }
+
+    @Override
+    public long getInputLatencyMaxMicros() {
+        return inputLatencyNanos.getMax() / 1000;
+    }
+
+    @Override
+    public long getFrameCount() {
+        return frameNanos.getCount();
+    }
+
+    @Override
+    public long getFrameP50Micros() {
+        return frameNanos.getPercentile(50) / 1000;
+    }
+
+    @Override
+    public long getFrameMaxMicros() {
+        return frameNanos.getMax() / 1000;
+    }
+
+    // both rates are averages since the last reset
+    @Override
+    public double getFramesPerSecond() {
+        return perSecond(frameNanos.getCount());
+    }
+
+    @Override
+    public double getTicksPerSecond() {
+        return perSecond(tickNanos.getCount());
+    }
+
+    private double perSecond(long count) {
+        double seconds = (System.nanoTime() - windowStartNanos) / 1e9;
+        return seconds <= 0 ? 0 : count / seconds;
+    }
+
+    @Override
+    public long getDroppedTurns() {
+        return droppedTurns.get();
+    }
+
+    @Override
+    public long getAllocatedBytesPerTickP50() {
+        return allocatedBytes.getPercentile(50);
+    }
+
+    @Override
+    public long getAllocatedBytesPerTickP99() {
+        return allocatedBytes.getPercentile(99);
+    }
+
+    @Override
+    public double getAllocationRateMBPerSecond() {
+        double seconds = (System.nanoTime() - windowStartNanos) / 1e9;
+        return seconds <= 0 ? 0 : allocatedTotal.get() / 1e6 / seconds;
+    }
+}
@@ -0,0 +1,62 @@
+package GameDependencies;
+
+// what jconsole and other JMX clients see under Snake:type=GameMetrics, times are in microseconds
+public interface GameMetricsMBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    void reset();
+
+    long getTickCount();
+
+    long getTickP50Micros();
+
+    long getTickP99Micros();
+
+    long getTickMaxMicros();
+
+    int getConfiguredIntervalMillis();
+
+    long getIntervalP50Micros();
+
+    long getIntervalP99Micros();
+
+    long getIntervalMaxMicros();
+
+    long getPaintP50Micros();
+
+    long getPaintP99Micros();
+
+    long getPaintMaxMicros();
+
+    long getEdtLagP50Micros();
+
+    long getEdtLagP99Micros();
+
+    long getEdtLagMaxMicros();
+
+    long getInputLatencyP50Micros();
+
+    long getInputLatencyP99Micros();
+
+    long getInputLatencyMaxMicros();
+
+    long getDroppedTurns();
+
+    long getFrameCount();
+
+    long getFrameP50Micros();
+
+    long getFrameMaxMicros();
+
+    double getFramesPerSecond();
+
+    double getTicksPerSecond();
+
+    long getAllocatedBytesPerTickP50();
+
+    long getAllocatedBytesPerTickP99();
+
+    double getAllocationRateMBPerSecond();
+}
@@ -0,0 +1,92 @@
+package GameDependencies;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// log-linear histogram in the style of HdrHistogram, 32 linear steps per power of two so every value is kept
+// to within about 3%, recording is a couple of atomic increments and never locks or allocates
+public class LatencyHistogram {
+    private static final int SUB_BITS = 6;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int HALF_COUNT = SUB_COUNT / 2;
+    private static final int BUCKETS = SUB_COUNT + (64 - SUB_BITS) * HALF_COUNT; // covers every positive long
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    // safe from any thread, negative values count as zero
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(indexOf(value));
+        total.incrementAndGet();
+        sum.addAndGet(value);
+        long m = max.get();
+        while (value > m && !max.compareAndSet(m, value)) {
+            m = max.get();
+        }
+    }
+
+    // values below 64 get a bucket each, above that the top 6 bits pick the sub-bucket
+    static int indexOf(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int exponent = (63 - Long.numberOfLeadingZeros(value)) - (SUB_BITS - 1);
+        int sub = (int) (value >>> exponent); // 32..63
+        return SUB_COUNT + (exponent - 1) * HALF_COUNT + (sub - HALF_COUNT);
+    }
+
+    // largest value that lands in the bucket
+    static long highestValueOf(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int exponent = (index - SUB_COUNT) / HALF_COUNT + 1;
+        long sub = (index - SUB_COUNT) % HALF_COUNT + HALF_COUNT;
+        return ((sub + 1) << exponent) - 1;
+    }
+
+    // value at the given percentile (0-100), 0 while empty
+    public long getPercentile(double percentile) {
+        long count = total.get();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public long getCount() {
+        return total.get();
+    }
+
+    public long getMean() {
+        long count = total.get();
+        return count == 0 ? 0 : sum.get() / count;
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    // recordings racing with a reset may land on either side of it
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        total.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+}
@@ -0,0 +1,163 @@
+package GameDependencies;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// every finished game appended to a binary log, with the best games per difficulty kept in memory
+public class Leaderboard {
+    private static final String LEADERBOARD_FILE = "leaderboard.dat";
+    public static final String[] DIFFICULTIES = {"Easy", "Medium", "Hard"};
+    public static final int TOP_SIZE = 10;
+
+    // score int, length int, duration int (ms), timestamp long, difficulty byte, 3 bytes padding
+    private static final int RECORD_SIZE = 24;
+    private static final long CLOSE_WAIT_SECONDS = 5; // how long close() waits for queued records
+
+    private final Path path;
+    private final LeaderboardEntry[][] top = new LeaderboardEntry[DIFFICULTIES.length][TOP_SIZE];
+    private final int[] topCount = new int[DIFFICULTIES.length];
+    private long gamesPlayed = 0;
+
+    private FileChannel channel;
+    private final ByteBuffer record = ByteBuffer.allocateDirect(RECORD_SIZE);
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Leaderboard writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // the writer is a daemon, this drains it when the JVM exits without close()
+    private volatile Thread shutdownHook = new Thread(this::close, "Leaderboard close");
+
+    public Leaderboard() {
+        this(Paths.get(LEADERBOARD_FILE));
+    }
+
+    public Leaderboard(Path path) {
+        this.path = path;
+        load();
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    // waits for queued records to reach the file, then releases it; later games are only kept in memory
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(CLOSE_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ex) {
+                    System.out.println("Could not close the leaderboard: " + ex.getMessage());
+                }
+                channel = null;
+            }
+        }
+        Thread hook = shutdownHook;
+        if (hook != null && Thread.currentThread() != hook) {
+            shutdownHook = null;
+            try {
+                Runtime.getRuntime().removeShutdownHook(hook);
+            } catch (IllegalStateException ignored) {
+                // already shutting down, the hook runs anyway
+            }
+        }
+    }
+
+    // scan the whole log once through a read-only mapping and rebuild the top lists
+    private void load() {
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long records = channel.size() / RECORD_SIZE;
+            if (channel.size() % RECORD_SIZE != 0) {
+                channel.truncate(records * RECORD_SIZE); // drop a record torn by a crash mid-write
+            }
+            channel.position(records * RECORD_SIZE);
+            if (records == 0) {
+                return;
+            }
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, records * RECORD_SIZE);
+            for (long i = 0; i < records; i++) {
+                int score = map.getInt();
+                int length = map.getInt();
+                int duration = map.getInt();
+                long timestamp = map.getLong();
+                int difficulty = map.get();
+                map.position(map.position() + 3);
+                if (difficulty >= 0 && difficulty < DIFFICULTIES.length) {
+                    offer(difficulty, score, length, duration, timestamp);
+                }
+                gamesPlayed++;
+            }
+        } catch (IOException ex) {
+            System.out.println("Leaderboard unavailable: " + ex.getMessage());
+            channel = null;
+        }
+    }
+
+    // O(1): the top list is bounded and the disk append happens on the writer thread
+    public synchronized void record(int score, int length, String difficulty, long durationMillis) {
+        int index = Math.max(0, Arrays.asList(DIFFICULTIES).indexOf(difficulty));
+        long timestamp = System.currentTimeMillis();
+        offer(index, score, length, (int) Math.min(Integer.MAX_VALUE, durationMillis), timestamp);
+        gamesPlayed++;
+        if (channel != null && !writer.isShutdown()) {
+            writer.execute(() -> append(score, length, (int) Math.min(Integer.MAX_VALUE, durationMillis), timestamp, index));
+        }
+    }
+
+    private void append(int score, int length, int duration, long timestamp, int difficulty) {
+        record.clear();
+        record.putInt(score).putInt(length).putInt(duration).putLong(timestamp).put((byte) difficulty);
+        record.put((byte) 0).put((byte) 0).put((byte) 0);
+        record.flip();
+        try {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    // insert into the sorted top list if the score is good enough, ties keep the older game first
+    private void offer(int difficulty, int score, int length, int duration, long timestamp) {
+        LeaderboardEntry[] list = top[difficulty];
+        int count = topCount[difficulty];
+        if (count == TOP_SIZE && list[count - 1].getScore() >= score) {
+            return;
+        }
+        int pos = Math.min(count, TOP_SIZE - 1);
+        while (pos > 0 && list[pos - 1].getScore() < score) {
+            if (pos < TOP_SIZE) {
+                list[pos] = list[pos - 1];
+            }
+            pos--;
+        }
+        list[pos] = new LeaderboardEntry(score, length, DIFFICULTIES[difficulty], duration, timestamp);
+        topCount[difficulty] = Math.min(TOP_SIZE, count + 1);
+    }
+
+    public synchronized List<LeaderboardEntry> getTop(String difficulty) {
+        int index = Math.max(0, Arrays.asList(DIFFICULTIES).indexOf(difficulty));
+        return new ArrayList<>(Arrays.asList(top[index]).subList(0, topCount[index]));
+    }
+
+    public synchronized long getGamesPlayed() {
+        return gamesPlayed;
+    }
+}
@@ -0,0 +1,38 @@
+package GameDependencies;
+
+// one finished game as stored in the leaderboard log
+public final class LeaderboardEntry {
+    private final int score;
+    private final int length;
+    private final String difficulty;
+    private final long durationMillis;
+    private final long timestamp;
+
+    public LeaderboardEntry(int score, int length, String difficulty, long durationMillis, long timestamp) {
+        this.score = score;
+        this.length = length;
+        this.difficulty = difficulty;
+        this.durationMillis = durationMillis;
+        this.timestamp = timestamp;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public String getDifficulty() {
+        return difficulty;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
@@ -0,0 +1,62 @@
+package GameDependencies;
+
+import GameEngine.Level;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// level files in the levels directory, opened as read-only mappings so even the biggest board opens at once
+public class LevelStore {
+    private static final String LEVEL_DIRECTORY = "levels";
+    private static final String EXTENSION = ".snkl";
+
+    private final Path directory;
+
+    public LevelStore() {
+        this(Paths.get(LEVEL_DIRECTORY));
+    }
+
+    public LevelStore(Path directory) {
+        this.directory = directory;
+    }
+
+    // level files sorted by name
+    public List<Path> list() {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        } catch (IOException ex) {
+            System.out.println("Could not list levels: " + ex.getMessage());
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    // the mapping outlives the channel, the level reads its grid from it for as long as the game runs
+    public Level load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return Level.decode(map);
+        }
+    }
+
+    // file name without the extension, how the menu shows a level
+    public static String displayName(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(EXTENSION) ? name.substring(0, name.length() - EXTENSION.length()) : name;
+    }
+}
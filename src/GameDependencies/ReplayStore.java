@@ -0,0 +1,115 @@
+package GameDependencies;
+
+import GameEngine.Replay;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// finished games saved as small replay files, one per game, keeping only the newest MAX_REPLAYS
+public class ReplayStore {
+    private static final String REPLAY_DIRECTORY = "replays";
+    private static final String EXTENSION = ".snkr";
+    private static final int MAX_REPLAYS = 100; // older files are deleted after each save
+    private static final long CLOSE_WAIT_SECONDS = 5; // how long close() waits for queued saves
+
+    private final Path directory;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Replay writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // the writer is a daemon, this drains it when the JVM exits without close()
+    private volatile Thread shutdownHook = new Thread(this::close, "Replay store close");
+
+    public ReplayStore() {
+        this(Paths.get(REPLAY_DIRECTORY));
+    }
+
+    public ReplayStore(Path directory) {
+        this.directory = directory;
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    // writes every queued replay, then stops the writer
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(CLOSE_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        Thread hook = shutdownHook;
+        if (hook != null && Thread.currentThread() != hook) {
+            shutdownHook = null;
+            try {
+                Runtime.getRuntime().removeShutdownHook(hook);
+            } catch (IllegalStateException ignored) {
+                // already shutting down, the hook runs anyway
+            }
+        }
+    }
+
+    // encoding is cheap, the file write happens on the writer thread
+    public void save(Replay replay) {
+        if (writer.isShutdown()) {
+            return;
+        }
+        byte[] data = replay.encode();
+        String name = new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date())
+                + "-" + replay.getFinalScore() + EXTENSION;
+        writer.execute(() -> {
+            try {
+                Files.createDirectories(directory);
+                Files.write(directory.resolve(name), data);
+            } catch (IOException ex) {
+                System.out.println("Could not save replay: " + ex.getMessage());
+                return;
+            }
+            prune();
+        });
+    }
+
+    // names start with the save time, so everything past the newest MAX_REPLAYS is the oldest
+    private void prune() {
+        List<Path> files = list();
+        for (int i = MAX_REPLAYS; i < files.size(); i++) {
+            try {
+                Files.deleteIfExists(files.get(i));
+            } catch (IOException ex) {
+                System.out.println("Could not delete old replay: " + ex.getMessage());
+            }
+        }
+    }
+
+    // saved replays, newest first
+    public List<Path> list() {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        } catch (IOException ex) {
+            System.out.println("Could not list replays: " + ex.getMessage());
+        }
+        files.sort(Collections.reverseOrder());
+        return files;
+    }
+
+    public Replay load(Path file) throws IOException {
+        return Replay.decode(Files.readAllBytes(file));
+    }
+}
@@ -0,0 +1,191 @@
+package GameEngine;
+
+import java.awt.Point;
+
+// computer player: shortest path to the item, checked with a flood fill so it doesn't box itself in
+// every buffer is sized for the board up front, a decision allocates nothing
+public class Autopilot {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final int width;
+    private final int height;
+    private final int[] queue;
+    private final int[] visited; // holds the current search number for cells already reached
+    private final int[] depth;
+    private final byte[] firstMove; // direction index of the first step on the path to each cell
+    private final int[] bodyIndex; // segment number counted from the head, valid when bodyStamp matches
+    private final int[] bodyStamp;
+    private int search = 0;
+    private int decision = 0;
+
+    private SnakeEngine engine;
+    private int length;
+    private int tail;
+
+    public Autopilot(int width, int height) {
+        this.width = width;
+        this.height = height;
+        int cells = width * height;
+        this.queue = new int[cells];
+        this.visited = new int[cells];
+        this.depth = new int[cells];
+        this.firstMove = new byte[cells];
+        this.bodyIndex = new int[cells];
+        this.bodyStamp = new int[cells];
+    }
+
+    // the turn to take on the next tick
+    public Direction decide(SnakeEngine engine) {
+        this.engine = engine;
+        SnakeBody snake = engine.getSnake();
+        length = snake.length();
+        tail = snake.tailCell();
+        decision++;
+        for (int i = 0; i < length; i++) {
+            int cell = snake.get(i);
+            bodyIndex[cell] = i;
+            bodyStamp[cell] = decision;
+        }
+        int head = snake.headCell();
+        Direction current = engine.getDirection();
+
+        int target = targetCell();
+        if (target >= 0) {
+            int move = firstMoveTowards(head, target, current);
+            if (move >= 0 && isSafe(head, move)) {
+                return DIRECTIONS[move];
+            }
+        }
+
+        // no safe way to the item, chasing the tail keeps a way out open
+        if (length > 1) {
+            int move = firstMoveTowards(head, tail, current);
+            if (move >= 0 && isSafe(head, move)) {
+                return DIRECTIONS[move];
+            }
+        }
+
+        // otherwise head into the biggest open area
+        int bestMove = -1;
+        int bestArea = -1;
+        for (int k = 0; k < DIRECTIONS.length; k++) {
+            if (DIRECTIONS[k].isOpposite(current)) {
+                continue;
+            }
+            int next = neighbour(head, k);
+            if (isBlocked(next)) {
+                continue;
+            }
+            int area = floodFill(next, width * height);
+            if (area > bestArea) {
+                bestArea = area;
+                bestMove = k;
+            }
+        }
+        return bestMove >= 0 ? DIRECTIONS[bestMove] : current;
+    }
+
+    private int targetCell() {
+        Point food = engine.getFood();
+        if (food != null) {
+            return food.x * height + food.y;
+        }
+        PowerUp powerUp = engine.getPowerUp();
+        if (powerUp != null) {
+            return powerUp.getPosition().x * height + powerUp.getPosition().y;
+        }
+        return -1;
+    }
+
+    // breadth-first search with wrap-around, a body segment counts as free once the tail has moved past it
+    private int firstMoveTowards(int start, int target, Direction current) {
+        int mark = ++search;
+        int readIndex = 0;
+        int writeIndex = 0;
+        visited[start] = mark;
+        depth[start] = 0;
+        queue[writeIndex++] = start;
+        while (readIndex < writeIndex) {
+            int cell = queue[readIndex++];
+            int nextDepth = depth[cell] + 1;
+            for (int k = 0; k < DIRECTIONS.length; k++) {
+                if (cell == start && DIRECTIONS[k].isOpposite(current)) {
+                    continue;
+                }
+                int next = neighbour(cell, k);
+                if (visited[next] == mark || !isFreeAt(next, nextDepth)) {
+                    continue;
+                }
+                visited[next] = mark;
+                depth[next] = nextDepth;
+                firstMove[next] = cell == start ? (byte) k : firstMove[cell];
+                if (next == target) {
+                    return firstMove[next];
+                }
+                queue[writeIndex++] = next;
+            }
+        }
+        return -1;
+    }
+
+    // after moving there, is there still room for the whole body
+    private boolean isSafe(int head, int move) {
+        int next = neighbour(head, move);
+        if (isBlocked(next)) {
+            return false;
+        }
+        return floodFill(next, length) >= length;
+    }
+
+    // cells reachable from start with the body where it is now, stops counting at limit
+    private int floodFill(int start, int limit) {
+        int mark = ++search;
+        int readIndex = 0;
+        int writeIndex = 0;
+        visited[start] = mark;
+        queue[writeIndex++] = start;
+        while (readIndex < writeIndex && writeIndex < limit) {
+            int cell = queue[readIndex++];
+            for (int k = 0; k < DIRECTIONS.length; k++) {
+                int next = neighbour(cell, k);
+                if (visited[next] != mark && !isBlocked(next)) {
+                    visited[next] = mark;
+                    queue[writeIndex++] = next;
+                }
+            }
+        }
+        return writeIndex;
+    }
+
+    // blocked on the next tick, the tail is about to move away
+    private boolean isBlocked(int cell) {
+        return engine.isCellOccupied(cell) && cell != tail;
+    }
+
+    // free when the head would arrive after the given number of moves
+    private boolean isFreeAt(int cell, int moves) {
+        if (!engine.isCellOccupied(cell)) {
+            return true;
+        }
+        if (bodyStamp[cell] != decision) {
+            return false; // occupied by something other than the snake
+        }
+        return bodyIndex[cell] >= length - moves;
+    }
+
+    private int neighbour(int cell, int k) {
+        int x = cell / height + DIRECTIONS[k].getDx();
+        int y = cell % height + DIRECTIONS[k].getDy();
+        if (x < 0) {
+            x = width - 1;
+        } else if (x >= width) {
+            x = 0;
+        }
+        if (y < 0) {
+            y = height - 1;
+        } else if (y >= height) {
+            y = 0;
+        }
+        return x * height + y;
+    }
+}
@@ -0,0 +1,72 @@
+package GameEngine;
+
+// totals of a batch of simulated games, each fork-join task builds its own and they are merged at the end
+public class BatchResult {
+    private long games;
+    private long ticks;
+    private long totalScore;
+    private int maxScore;
+    private long timedOut; // games stopped at the tick limit instead of a game over
+    private long elapsedNanos;
+
+    void addGame(long gameTicks, int score, boolean gameOver) {
+        games++;
+        ticks += gameTicks;
+        totalScore += score;
+        maxScore = Math.max(maxScore, score);
+        if (!gameOver) {
+            timedOut++;
+        }
+    }
+
+    BatchResult merge(BatchResult other) {
+        games += other.games;
+        ticks += other.ticks;
+        totalScore += other.totalScore;
+        maxScore = Math.max(maxScore, other.maxScore);
+        timedOut += other.timedOut;
+        return this;
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public double getAverageScore() {
+        return games == 0 ? 0 : (double) totalScore / games;
+    }
+
+    public int getMaxScore() {
+        return maxScore;
+    }
+
+    public long getTimedOut() {
+        return timedOut;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getGamesPerSecond() {
+        return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos;
+    }
+
+    public double getTicksPerSecond() {
+        return elapsedNanos == 0 ? 0 : ticks * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d games, %d ticks in %.2f s: %.0f games/s, %.0f ticks/s, avg score %.1f, max %d, %d hit the tick limit",
+                games, ticks, elapsedNanos / 1e9, getGamesPerSecond(), getTicksPerSecond(), getAverageScore(), maxScore, timedOut);
+    }
+}
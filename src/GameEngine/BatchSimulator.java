@@ -0,0 +1,160 @@
+package GameEngine;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// runs many independent headless games across every core, e.g. to compare timing settings
+public class BatchSimulator {
+    private static final int GAMES_PER_TASK = 32; // below this a range is simulated instead of split
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final int width;
+    private final int height;
+    private int itemLifetimeTicks = SnakeEngine.DEFAULT_ITEM_LIFETIME_TICKS;
+    private int powerUpTicks = SnakeEngine.DEFAULT_POWER_UP_TICKS;
+    private int foodWeight = SnakeEngine.DEFAULT_FOOD_WEIGHT;
+    private final int[] powerUpWeights = new int[PowerUpType.VALUES.length];
+    private int maxTicks = 20_000; // a game that survives this long is cut off
+    private int turnPercent = 10; // chance per tick that the random player turns
+    private boolean useAutopilot = false; // the random player unless set
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    // each worker thread simulates on its own engine, nothing mutable is shared between threads
+    private ThreadLocal<Worker> workers;
+
+    public BatchSimulator(int width, int height) {
+        this.width = width;
+        this.height = height;
+        for (PowerUpType type : PowerUpType.VALUES) {
+            powerUpWeights[type.ordinal()] = type.getDefaultWeight();
+        }
+    }
+
+    public void setTimings(int itemLifetimeTicks, int powerUpTicks) {
+        this.itemLifetimeTicks = itemLifetimeTicks;
+        this.powerUpTicks = powerUpTicks;
+    }
+
+    // same meaning as SnakeEngine.setSpawnWeights, every worker's engine gets them
+    public void setSpawnWeights(int foodWeight, int[] powerUpWeights) {
+        this.foodWeight = foodWeight;
+        for (int i = 0; i < this.powerUpWeights.length; i++) {
+            this.powerUpWeights[i] = i < powerUpWeights.length ? powerUpWeights[i] : 0;
+        }
+    }
+
+    public void setMaxTicks(int maxTicks) {
+        this.maxTicks = maxTicks;
+    }
+
+    public void setTurnPercent(int turnPercent) {
+        this.turnPercent = turnPercent;
+    }
+
+    public void setUseAutopilot(boolean useAutopilot) {
+        this.useAutopilot = useAutopilot;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    // game i always gets the same seed, so a batch is reproducible whatever the thread count
+    public BatchResult run(int games, long seed) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        workers = ThreadLocal.withInitial(Worker::new);
+        try {
+            long start = System.nanoTime();
+            BatchResult result = pool.invoke(new GameRange(0, games, seed));
+            result.setElapsedNanos(System.nanoTime() - start);
+            return result;
+        } finally {
+            pool.shutdown();
+            workers = null;
+        }
+    }
+
+    private class GameRange extends RecursiveTask<BatchResult> {
+        private final int from;
+        private final int to;
+        private final long seed;
+
+        GameRange(int from, int to, long seed) {
+            this.from = from;
+            this.to = to;
+            this.seed = seed;
+        }
+
+        @Override
+        protected BatchResult compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                return workers.get().simulate(from, to, seed);
+            }
+            int middle = (from + to) >>> 1;
+            GameRange left = new GameRange(from, middle, seed);
+            left.fork();
+            BatchResult right = new GameRange(middle, to, seed).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    // engine and input generator allocated once per thread and reused for every game it runs
+    private class Worker {
+        private final SnakeEngine engine = new SnakeEngine(width, height, 0);
+        private final GameRandom input = new GameRandom(0);
+        private Autopilot autopilot; // only built once a batch asks for it, its search arrays are board sized
+        private final Direction[] directions = Direction.values();
+
+        BatchResult simulate(int from, int to, long seed) {
+            engine.setTimings(itemLifetimeTicks, powerUpTicks);
+            engine.setSpawnWeights(foodWeight, powerUpWeights);
+            if (useAutopilot && autopilot == null) {
+                autopilot = new Autopilot(width, height);
+            }
+            BatchResult result = new BatchResult();
+            for (int game = from; game < to; game++) {
+                input.setSeed(seed + game * GOLDEN_GAMMA);
+                engine.reset(input.nextLong());
+                while (!engine.isGameOver() && engine.getTick() < maxTicks) {
+                    Direction turn;
+                    if (useAutopilot) {
+                        turn = autopilot.decide(engine);
+                    } else {
+                        turn = input.nextInt(100) < turnPercent ? directions[input.nextInt(directions.length)] : null;
+                    }
+                    engine.step(turn);
+                }
+                result.addGame(engine.getTick(), engine.getScore(), engine.isGameOver());
+            }
+            return result;
+        }
+    }
+
+    // usage: BatchSimulator [games] [threads] [autopilot], without a thread count it measures scaling from 1 thread up
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        BatchSimulator simulator = new BatchSimulator(SnakeEngine.DEFAULT_WIDTH, SnakeEngine.DEFAULT_HEIGHT);
+        simulator.setUseAutopilot(args.length > 2 && "autopilot".equals(args[2]));
+        simulator.setParallelism(1);
+        simulator.run(Math.max(1, games / 10), 1); // warm up the JIT before measuring
+
+        if (args.length > 1) {
+            simulator.setParallelism(Integer.parseInt(args[1]));
+            System.out.println(simulator.run(games, 42));
+            return;
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        double single = 0;
+        for (int threads = 1; ; threads = Math.min(threads * 2, cores)) {
+            simulator.setParallelism(threads);
+            BatchResult result = simulator.run(games, 42);
+            if (threads == 1) {
+                single = result.getTicksPerSecond();
+            }
+            System.out.printf("%2d threads: %s (%.2fx)%n", threads, result, result.getTicksPerSecond() / single);
+            if (threads == cores) {
+                break;
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package GameEngine;
+
+public enum Direction {
+    UP(0, -1),
+    DOWN(0, 1),
+    LEFT(-1, 0),
+    RIGHT(1, 0);
+
+    private final int dx;
+    private final int dy;
+
+    Direction(int dx, int dy) {
+        this.dx = dx;
+        this.dy = dy;
+    }
+
+    public int getDx() {
+        return dx;
+    }
+
+    public int getDy() {
+        return dy;
+    }
+
+    // a snake can never turn straight back into its own neck
+    public boolean isOpposite(Direction other) {
+        return other != null && dx == -other.dx && dy == -other.dy;
+    }
+}
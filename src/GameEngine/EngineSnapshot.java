@@ -0,0 +1,46 @@
+package GameEngine;
+
+// everything needed to continue a game from a given tick, taken by SnakeEngine.snapshot()
+public class EngineSnapshot {
+    final long tick;
+    final long seed;
+    final long randomState;
+    final Direction direction;
+    final boolean isGameOver;
+    final int score;
+    final int pointsMultiplier;
+    final int foodCell; // -1 when there is no food
+    final int powerUpCell; // -1 when there is no power-up
+    final PowerUpType powerUpType;
+    final long itemExpiryDeadline; // -1 when not scheduled
+    final int[] effectStacks; // by PowerUpType ordinal
+    final long[] effectDeadlines; // -1 when the effect isn't active
+    final int[] body; // head first
+
+    EngineSnapshot(long tick, long seed, long randomState, Direction direction, boolean isGameOver, int score,
+                   int pointsMultiplier, int foodCell, int powerUpCell, PowerUpType powerUpType, long itemExpiryDeadline,
+                   int[] effectStacks, long[] effectDeadlines, int[] body) {
+        this.tick = tick;
+        this.seed = seed;
+        this.randomState = randomState;
+        this.direction = direction;
+        this.isGameOver = isGameOver;
+        this.score = score;
+        this.pointsMultiplier = pointsMultiplier;
+        this.foodCell = foodCell;
+        this.powerUpCell = powerUpCell;
+        this.powerUpType = powerUpType;
+        this.itemExpiryDeadline = itemExpiryDeadline;
+        this.effectStacks = effectStacks;
+        this.effectDeadlines = effectDeadlines;
+        this.body = body;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public int getScore() {
+        return score;
+    }
+}
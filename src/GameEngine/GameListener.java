@@ -0,0 +1,14 @@
+package GameEngine;
+
+// callbacks fired by the engine while a step is being processed
+public interface GameListener {
+    void scoreChanged(int score);
+
+    void itemSpawned();
+
+    void powerUpActivated(PowerUpType type); // also when an active effect is stacked or refreshed
+
+    void powerUpDeactivated(PowerUpType type);
+
+    void gameOver(int score);
+}
@@ -0,0 +1,58 @@
+package GameEngine;
+
+// SplitMix64 generator, the whole state is one long so games can be reproduced and snapshotted
+public class GameRandom {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+
+    public GameRandom(long seed) {
+        this.state = seed;
+    }
+
+    public static long newSeed() {
+        return mix(System.nanoTime() ^ Thread.currentThread().getId() * GOLDEN_GAMMA);
+    }
+
+    public void setSeed(long seed) {
+        this.state = seed;
+    }
+
+    public long getState() {
+        return state;
+    }
+
+    public void setState(long state) {
+        this.state = state;
+    }
+
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix(state);
+    }
+
+    // uniform in [0, bound) without modulo bias
+    public int nextInt(int bound) {
+        long product = (nextLong() >>> 32) * bound;
+        int low = (int) product;
+        if (Integer.compareUnsigned(low, bound) < 0) {
+            int threshold = Integer.remainderUnsigned(-bound, bound);
+            while (Integer.compareUnsigned(low, threshold) < 0) {
+                product = (nextLong() >>> 32) * bound;
+                low = (int) product;
+            }
+        }
+        return (int) (product >>> 32);
+    }
+
+    // an independent stream derived from this one, e.g. for cosmetic effects that must not disturb the game
+    public GameRandom split() {
+        return new GameRandom(nextLong());
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
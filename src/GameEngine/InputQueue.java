@@ -0,0 +1,98 @@
+package GameEngine;
+
+// bounded single-producer/single-consumer queue of turn intents, one is consumed per tick
+public class InputQueue {
+    private final Direction[] directions;
+    private final long[] enqueuedAt;
+    private final int mask;
+    private volatile long head = 0; // next slot to read, only written by the consumer
+    private volatile long tail = 0; // next slot to write, only written by the producer
+
+    // producer side
+    private int dropped = 0;
+
+    // consumer side, key event to applied move
+    private long latencyTotalNanos = 0;
+    private long maxLatencyNanos = 0;
+    private long lastLatencyNanos = 0;
+    private int applied = 0;
+
+    public InputQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity));
+        if (size < capacity) {
+            size <<= 1; // round up to a power of two
+        }
+        this.directions = new Direction[size];
+        this.enqueuedAt = new long[size];
+        this.mask = size - 1;
+    }
+
+    // called from the input thread, returns false if the queue was full
+    public boolean offer(Direction direction, long nanoTime) {
+        long t = tail;
+        long h = head;
+        if (t != h && directions[(int) ((t - 1) & mask)] == direction) {
+            return true; // same as the last pending turn, e.g. key repeat
+        }
+        if (t - h == directions.length) {
+            dropped++;
+            return false;
+        }
+        int slot = (int) (t & mask);
+        directions[slot] = direction;
+        enqueuedAt[slot] = nanoTime;
+        tail = t + 1;
+        return true;
+    }
+
+    // called from the tick, returns the first pending turn that is legal for the current heading or null
+    public Direction poll(Direction current, long nanoTime) {
+        long h = head;
+        while (h != tail) {
+            int slot = (int) (h & mask);
+            Direction direction = directions[slot];
+            long at = enqueuedAt[slot];
+            head = ++h;
+            if (direction != current && !direction.isOpposite(current)) {
+                lastLatencyNanos = nanoTime - at;
+                latencyTotalNanos += lastLatencyNanos;
+                maxLatencyNanos = Math.max(maxLatencyNanos, lastLatencyNanos);
+                applied++;
+                return direction;
+            }
+        }
+        return null;
+    }
+
+    // consumer side only, drops every pending turn
+    public void clear() {
+        head = tail;
+    }
+
+    public int getDropped() {
+        return dropped;
+    }
+
+    public int getApplied() {
+        return applied;
+    }
+
+    public long getLastLatencyNanos() {
+        return lastLatencyNanos;
+    }
+
+    public long getAverageLatencyNanos() {
+        return applied == 0 ? 0 : latencyTotalNanos / applied;
+    }
+
+    public long getMaxLatencyNanos() {
+        return maxLatencyNanos;
+    }
+
+    public void resetStats() {
+        latencyTotalNanos = 0;
+        maxLatencyNanos = 0;
+        lastLatencyNanos = 0;
+        applied = 0;
+    }
+}
@@ -0,0 +1,301 @@
+package GameEngine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// a fixed board layout: walls, cells that never take food and portals
+// the grid is two bits per cell, column by column like OccupancyGrid, and is read straight out of the buffer
+// it was decoded from, so a level mapped from disk is never copied onto the heap
+//
+// file layout, big-endian: "SNKL", version byte, width int, height int, start x int, start y int,
+// start direction byte, name (unsigned short length + UTF-8), portal count int, (entry cell int, exit cell int)
+// per portal, then (width * height + 3) / 4 grid bytes with cell i in bits (i % 4) * 2 of byte i / 4
+public class Level {
+    public static final int EMPTY = 0;
+    public static final int WALL = 1;
+    public static final int NO_SPAWN = 2; // the snake can cross it, food and power-ups never appear on it
+    public static final int PORTAL = 3; // a head moving onto it comes out on the portal's exit cell
+    public static final int MAX_SIDE = 10000; // same limit as boardWidth and boardHeight in config.properties
+
+    private static final byte[] MAGIC = {'S', 'N', 'K', 'L'};
+    private static final int VERSION = 1;
+
+    private final String name;
+    private final int width;
+    private final int height;
+    private final int startCell;
+    private final Direction startDirection;
+    private final int[] portalEntries; // sorted, so the engine can binary search them
+    private final int[] portalExits;
+    private final ByteBuffer source; // the whole level, kept for replays
+    private final ByteBuffer grid;
+    private byte[] encoded;
+
+    private Level(String name, int width, int height, int startCell, Direction startDirection,
+                  int[] portalEntries, int[] portalExits, ByteBuffer source, ByteBuffer grid) {
+        this.name = name;
+        this.width = width;
+        this.height = height;
+        this.startCell = startCell;
+        this.startDirection = startDirection;
+        this.portalEntries = portalEntries;
+        this.portalExits = portalExits;
+        this.source = source;
+        this.grid = grid;
+    }
+
+    // the buffer may be a read-only mapping of a level file, only the header and portal list are read here
+    public static Level decode(ByteBuffer data) throws IOException {
+        ByteBuffer buffer = data.duplicate();
+        buffer.position(0);
+        try {
+            for (byte b : MAGIC) {
+                if (buffer.get() != b) {
+                    throw new IOException("Not a level file");
+                }
+            }
+            if (buffer.get() != VERSION) {
+                throw new IOException("Unsupported level version");
+            }
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            if (width < 2 || height < 2 || width > MAX_SIDE || height > MAX_SIDE) {
+                throw new IOException("Level size " + width + "x" + height + " out of range");
+            }
+            int startX = buffer.getInt();
+            int startY = buffer.getInt();
+            int directionIndex = buffer.get();
+            if (startX < 0 || startY < 0 || startX >= width || startY >= height
+                    || directionIndex < 0 || directionIndex >= Direction.values().length) {
+                throw new IOException("Bad start position in level");
+            }
+            byte[] nameBytes = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(nameBytes);
+            int cells = width * height;
+            int portalCount = buffer.getInt();
+            if (portalCount < 0 || portalCount > cells) {
+                throw new IOException("Bad portal count in level");
+            }
+            int[] entries = new int[portalCount];
+            int[] exits = new int[portalCount];
+            for (int i = 0; i < portalCount; i++) {
+                entries[i] = buffer.getInt();
+                exits[i] = buffer.getInt();
+                if (entries[i] < 0 || entries[i] >= cells || exits[i] < 0 || exits[i] >= cells) {
+                    throw new IOException("Portal outside the level");
+                }
+            }
+            int gridBytes = (cells + 3) >>> 2;
+            if (buffer.remaining() < gridBytes) {
+                throw new IOException("Truncated level");
+            }
+            ByteBuffer grid = buffer.slice();
+            grid.limit(gridBytes);
+            sortPortals(entries, exits);
+
+            Level level = new Level(new String(nameBytes, StandardCharsets.UTF_8), width, height,
+                    startX * height + startY, Direction.values()[directionIndex],
+                    entries, exits, data.duplicate().position(0).limit(buffer.position() + gridBytes), grid);
+            level.validate();
+            return level;
+        } catch (BufferUnderflowException ex) {
+            throw new IOException("Truncated level");
+        }
+    }
+
+    // insertion sort by entry cell, levels only have a handful of portals
+    private static void sortPortals(int[] entries, int[] exits) {
+        for (int i = 1; i < entries.length; i++) {
+            int entry = entries[i];
+            int exit = exits[i];
+            int j = i - 1;
+            while (j >= 0 && entries[j] > entry) {
+                entries[j + 1] = entries[j];
+                exits[j + 1] = exits[j];
+                j--;
+            }
+            entries[j + 1] = entry;
+            exits[j + 1] = exit;
+        }
+    }
+
+    private void validate() throws IOException {
+        int type = cellType(startCell);
+        if (type == WALL || type == PORTAL) {
+            throw new IOException("Level starts the snake on a " + (type == WALL ? "wall" : "portal"));
+        }
+        for (int i = 0; i < portalEntries.length; i++) {
+            if (i > 0 && portalEntries[i] == portalEntries[i - 1]) {
+                throw new IOException("Portal " + portalEntries[i] + " has two exits");
+            }
+            if (cellType(portalEntries[i]) != PORTAL) {
+                throw new IOException("Portal " + portalEntries[i] + " is not marked in the grid");
+            }
+            if (cellType(portalExits[i]) == WALL) {
+                throw new IOException("Portal " + portalEntries[i] + " leads into a wall");
+            }
+        }
+    }
+
+    // build a level from rows of text, mostly for level authors via main()
+    // '#' wall, '~' no spawn, '.' or ' ' empty, '>' '<' '^' 'v' the start and heading,
+    // a letter is a portal that leads to the same letter in the other case, e.g. A to a and a to A (v is taken)
+    public static Level fromText(String name, List<String> rows) throws IOException {
+        int height = rows.size();
+        int width = 0;
+        for (String row : rows) {
+            width = Math.max(width, row.length());
+        }
+        if (width < 2 || height < 2 || width > MAX_SIDE || height > MAX_SIDE) {
+            throw new IOException("Level size " + width + "x" + height + " out of range");
+        }
+        byte[] grid = new byte[(width * height + 3) >>> 2];
+        int[] letters = new int[52];
+        Arrays.fill(letters, -1);
+        int startCell = Math.min(SnakeEngine.START_X, width - 1) * height + Math.min(SnakeEngine.START_Y, height - 1);
+        Direction start = Direction.RIGHT;
+        for (int y = 0; y < height; y++) {
+            String row = rows.get(y);
+            for (int x = 0; x < row.length(); x++) {
+                char c = row.charAt(x);
+                int cell = x * height + y;
+                int type;
+                if (c == '#') {
+                    type = WALL;
+                } else if (c == '~') {
+                    type = NO_SPAWN;
+                } else if (c == '.' || c == ' ') {
+                    type = EMPTY;
+                } else if (c == '>' || c == '<' || c == '^' || c == 'v') {
+                    type = EMPTY;
+                    startCell = cell;
+                    start = c == '>' ? Direction.RIGHT : c == '<' ? Direction.LEFT : c == '^' ? Direction.UP : Direction.DOWN;
+                } else if (c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z') {
+                    type = PORTAL;
+                    int letter = c >= 'a' ? c - 'a' + 26 : c - 'A';
+                    if (letters[letter] >= 0) {
+                        throw new IOException("Portal " + c + " appears twice");
+                    }
+                    letters[letter] = cell;
+                } else {
+                    throw new IOException("Unknown level character '" + c + "' at " + x + "," + y);
+                }
+                grid[cell >>> 2] |= (byte) (type << ((cell & 3) << 1));
+            }
+        }
+        List<int[]> portals = new ArrayList<>();
+        for (int letter = 0; letter < 52; letter++) {
+            if (letters[letter] >= 0) {
+                int exit = letters[letter < 26 ? letter + 26 : letter - 26];
+                if (exit < 0) {
+                    char c = (char) (letter < 26 ? 'A' + letter : 'a' + letter - 26);
+                    throw new IOException("Portal " + c + " has no exit");
+                }
+                portals.add(new int[]{letters[letter], exit});
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + grid.length);
+        DataOutputStream out = new DataOutputStream(bytes);
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(width);
+        out.writeInt(height);
+        out.writeInt(startCell / height);
+        out.writeInt(startCell % height);
+        out.writeByte(start.ordinal());
+        out.writeShort(nameBytes.length);
+        out.write(nameBytes);
+        out.writeInt(portals.size());
+        for (int[] portal : portals) {
+            out.writeInt(portal[0]);
+            out.writeInt(portal[1]);
+        }
+        out.write(grid);
+        out.flush();
+        return decode(ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
+    public int cellType(int cell) {
+        return (grid.get(cell >>> 2) >>> ((cell & 3) << 1)) & 3;
+    }
+
+    public int cellType(int x, int y) {
+        return cellType(x * height + y);
+    }
+
+    // raw grid byte holding cells i * 4 to i * 4 + 3, lets the grid skip empty stretches four cells at a time
+    int gridByte(int i) {
+        return grid.get(i) & 0xFF;
+    }
+
+    int getGridBytes() {
+        return grid.limit();
+    }
+
+    int[] getPortalEntries() {
+        return portalEntries;
+    }
+
+    int[] getPortalExits() {
+        return portalExits;
+    }
+
+    // the level file's bytes, replays embed them so they still play after the file changes
+    public synchronized byte[] encode() {
+        if (encoded == null) {
+            encoded = new byte[source.limit()];
+            source.duplicate().get(encoded);
+        }
+        return encoded;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getStartCell() {
+        return startCell;
+    }
+
+    public Direction getStartDirection() {
+        return startDirection;
+    }
+
+    public int getPortalCount() {
+        return portalEntries.length;
+    }
+
+    // converts text levels for the levels directory: java GameEngine.Level <level.txt> <level.snkl>
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: java GameEngine.Level <level.txt> <level.snkl>");
+            return;
+        }
+        Path input = Paths.get(args[0]);
+        String name = input.getFileName().toString().replaceFirst("\\.txt$", "");
+        Level level = fromText(name, Files.readAllLines(input, StandardCharsets.UTF_8));
+        Files.write(Paths.get(args[1]), level.encode());
+        System.out.println("Wrote " + level.getName() + ": " + level.getWidth() + "x" + level.getHeight()
+                + ", " + level.getPortalCount() + " portals, " + level.encode().length + " bytes");
+    }
+}
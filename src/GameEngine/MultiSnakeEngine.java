@@ -0,0 +1,219 @@
+package GameEngine;
+
+// several snakes on one shared board, the authoritative simulation behind the multiplayer server
+public class MultiSnakeEngine {
+    public static final int RESPAWN_TICKS = 30; // a dead player comes back after this many ticks
+
+    private final int width;
+    private final int height;
+    private final int maxPlayers;
+    private final GameRandom random;
+    private final OccupancyGrid occupancy;
+    private MultiplayerListener listener;
+
+    // per player slot, a slot is reused once its player leaves
+    private final SnakeBody[] bodies;
+    private final boolean[] connected;
+    private final boolean[] alive;
+    private final Direction[] heading; // direction of the last move
+    private final Direction[] requested; // turn to apply on the next step
+    private final int[] scores;
+    private final long[] respawnTick;
+
+    private int foodCell = -1;
+    private long tick = 0;
+
+    public MultiSnakeEngine(int width, int height, int maxPlayers, long seed) {
+        this.width = width;
+        this.height = height;
+        this.maxPlayers = maxPlayers;
+        this.random = new GameRandom(seed);
+        this.occupancy = new OccupancyGrid(width, height);
+        this.bodies = new SnakeBody[maxPlayers];
+        this.connected = new boolean[maxPlayers];
+        this.alive = new boolean[maxPlayers];
+        this.heading = new Direction[maxPlayers];
+        this.requested = new Direction[maxPlayers];
+        this.scores = new int[maxPlayers];
+        this.respawnTick = new long[maxPlayers];
+        spawnFood();
+    }
+
+    public void setListener(MultiplayerListener listener) {
+        this.listener = listener;
+    }
+
+    // take a free slot and drop a new snake somewhere empty, -1 when every slot is taken
+    public int addPlayer() {
+        for (int player = 0; player < maxPlayers; player++) {
+            if (!connected[player]) {
+                connected[player] = true;
+                if (bodies[player] == null) {
+                    bodies[player] = new SnakeBody(width * height);
+                }
+                spawn(player);
+                return player;
+            }
+        }
+        return -1;
+    }
+
+    public void removePlayer(int player) {
+        if (!connected[player]) {
+            return;
+        }
+        if (alive[player]) {
+            clearBody(player);
+        }
+        connected[player] = false;
+        if (listener != null) {
+            listener.playerLeft(player);
+        }
+    }
+
+    // the last request before a step wins, turning back on itself is ignored
+    public void setDirection(int player, Direction direction) {
+        if (connected[player] && alive[player] && !direction.isOpposite(heading[player])) {
+            requested[player] = direction;
+        }
+    }
+
+    // move every snake once, in slot order so a tie on a cell goes to the lower slot
+    public void step() {
+        tick++;
+        if (foodCell < 0) {
+            spawnFood(); // the board was full last time
+        }
+        for (int player = 0; player < maxPlayers; player++) {
+            if (connected[player] && !alive[player] && respawnTick[player] <= tick) {
+                spawn(player);
+            }
+        }
+        for (int player = 0; player < maxPlayers; player++) {
+            if (alive[player]) {
+                moveSnake(player);
+            }
+        }
+    }
+
+    private void moveSnake(int player) {
+        SnakeBody body = bodies[player];
+        Direction direction = requested[player];
+        heading[player] = direction;
+        int x = occupancy.cellX(body.headCell()) + direction.getDx();
+        int y = occupancy.cellY(body.headCell()) + direction.getDy();
+
+        // wrapping around based on the number of blocks
+        if (x < 0) {
+            x = width - 1;
+        } else if (x >= width) {
+            x = 0;
+        }
+        if (y < 0) {
+            y = height - 1;
+        } else if (y >= height) {
+            y = 0;
+        }
+
+        int next = occupancy.cellIndex(x, y);
+        boolean ateFood = next == foodCell;
+        if (!ateFood) {
+            occupancy.release(body.popTail());
+            if (listener != null) {
+                listener.tailDropped(player);
+            }
+        }
+        if (occupancy.isOccupied(next)) {
+            clearBody(player);
+            alive[player] = false;
+            respawnTick[player] = tick + RESPAWN_TICKS;
+            if (listener != null) {
+                listener.playerDied(player);
+            }
+            return;
+        }
+        body.pushHead(next);
+        occupancy.occupy(next);
+        if (listener != null) {
+            listener.headMoved(player, next);
+        }
+        if (ateFood) {
+            scores[player] += 10;
+            if (listener != null) {
+                listener.scoreChanged(player, scores[player]);
+            }
+            spawnFood();
+        }
+    }
+
+    private void spawn(int player) {
+        int cell = occupancy.randomFreeCell(random);
+        if (cell < 0 || cell == foodCell) {
+            respawnTick[player] = tick + 1; // nowhere to go right now, try again next tick
+            alive[player] = false;
+            return;
+        }
+        SnakeBody body = bodies[player];
+        body.clear();
+        body.pushHead(cell);
+        occupancy.occupy(cell);
+        alive[player] = true;
+        heading[player] = Direction.RIGHT;
+        requested[player] = Direction.RIGHT;
+        scores[player] = 0;
+        if (listener != null) {
+            listener.playerSpawned(player, cell);
+        }
+    }
+
+    private void clearBody(int player) {
+        SnakeBody body = bodies[player];
+        while (body.length() > 0) {
+            occupancy.release(body.popTail());
+        }
+        alive[player] = false;
+    }
+
+    private void spawnFood() {
+        foodCell = occupancy.randomFreeCell(random);
+        if (listener != null) {
+            listener.foodSpawned(foodCell);
+        }
+    }
+
+    public boolean isConnected(int player) {
+        return connected[player];
+    }
+
+    public boolean isAlive(int player) {
+        return alive[player];
+    }
+
+    public int getScore(int player) {
+        return scores[player];
+    }
+
+    public SnakeBody getBody(int player) {
+        return bodies[player];
+    }
+
+    public int getFoodCell() {
+        return foodCell;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public int getMaxPlayers() {
+        return maxPlayers;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
@@ -0,0 +1,18 @@
+package GameEngine;
+
+// every change a multiplayer step makes to the board, enough for a client to mirror it exactly
+public interface MultiplayerListener {
+    void playerSpawned(int player, int cell);
+
+    void headMoved(int player, int cell);
+
+    void tailDropped(int player);
+
+    void playerDied(int player);
+
+    void playerLeft(int player);
+
+    void foodSpawned(int cell);
+
+    void scoreChanged(int player, int score);
+}
@@ -0,0 +1,366 @@
+package GameEngine;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+// one bit per board cell, set while a snake segment or a level wall sits on it
+// normal boards keep a flat bitset plus a bitset of the cells spawns may use, counted per word in a Fenwick tree
+// so the k-th free cell in index order is found in O(log n); the pick only depends on which cells are free, so a
+// snapshot needs no copy of any free-cell order. boards above DENSE_LIMIT cells switch to 64x64 chunks that only
+// exist while something occupies them, so memory follows the snake, not the area
+public class OccupancyGrid {
+    public static final int DENSE_LIMIT = 1 << 20; // cells, about 1000x1000
+    private static final int CHUNK_SHIFT = 6; // chunks are 64x64 cells, 64 longs
+    private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+    private static final int SAMPLE_ATTEMPTS = 64; // random probes before a sparse board falls back to a scan
+
+    private final int width;
+    private final int height;
+    private final int cellCount;
+
+    // dense mode
+    private final long[] bits;
+    private final long[] free; // neither occupied nor reserved
+    private final int[] freeTree; // Fenwick tree of free cells per word of free[], 1-based
+    private int freeCount;
+
+    // sparse mode
+    private final long[][] chunks;
+    private final int[] chunkCounts; // occupied cells per chunk, an empty chunk goes back to the pool
+    private final int chunksY;
+    private final ArrayDeque<long[]> chunkPool = new ArrayDeque<>();
+    private int occupiedCount = 0;
+
+    // level layout, walls are put back by every clear() and reserved cells (walls, no-spawn zones and portals)
+    // never come up as free, so collisions and spawns need no checks of their own; null without a level
+    private long[] wallBits;
+    private long[] reservedBits;
+    private long[][] wallChunks;
+    private long[][] reservedChunks;
+
+    public OccupancyGrid(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.cellCount = width * height;
+        if (cellCount <= DENSE_LIMIT) {
+            this.bits = new long[(cellCount + 63) >>> 6];
+            this.free = new long[bits.length];
+            this.freeTree = new int[bits.length + 1];
+            this.chunks = null;
+            this.chunkCounts = null;
+            this.chunksY = 0;
+        } else {
+            this.bits = null;
+            this.free = null;
+            this.freeTree = null;
+            this.chunksY = (height + CHUNK_MASK) >>> CHUNK_SHIFT;
+            int chunksX = (width + CHUNK_MASK) >>> CHUNK_SHIFT;
+            this.chunks = new long[chunksX * chunksY][];
+            this.chunkCounts = new int[chunksX * chunksY];
+        }
+        if (bits != null) {
+            rebuildFree();
+        }
+    }
+
+    // merge a level of the same size into the grid and clear it
+    public void setLevel(Level level) {
+        if (level.getWidth() != width || level.getHeight() != height) {
+            throw new IllegalArgumentException("Level is " + level.getWidth() + "x" + level.getHeight()
+                    + ", board is " + width + "x" + height);
+        }
+        if (chunks == null) {
+            wallBits = new long[bits.length];
+            reservedBits = new long[bits.length];
+        } else {
+            wallChunks = new long[chunks.length][];
+            reservedChunks = new long[chunks.length][];
+        }
+        int bytes = level.getGridBytes();
+        for (int i = 0; i < bytes; i++) {
+            int b = level.gridByte(i);
+            if (b == 0) {
+                continue; // four empty cells
+            }
+            for (int k = 0; k < 4; k++) {
+                int type = (b >>> (k << 1)) & 3;
+                int cell = (i << 2) + k;
+                if (type != Level.EMPTY && cell < cellCount) {
+                    if (type == Level.WALL) {
+                        mark(wallBits, wallChunks, cell);
+                    }
+                    mark(reservedBits, reservedChunks, cell);
+                }
+            }
+        }
+        clear();
+    }
+
+    private void mark(long[] denseBits, long[][] sparseChunks, int cell) {
+        if (denseBits != null) {
+            denseBits[cell >>> 6] |= 1L << cell;
+            return;
+        }
+        int x = cell / height;
+        int y = cell - x * height;
+        int index = chunkIndex(x, y);
+        if (sparseChunks[index] == null) {
+            sparseChunks[index] = new long[1 << CHUNK_SHIFT];
+        }
+        sparseChunks[index][x & CHUNK_MASK] |= 1L << (y & CHUNK_MASK);
+    }
+
+    // a wall, no-spawn or portal cell of the level
+    private boolean isReserved(int cell) {
+        if (reservedBits != null) {
+            return (reservedBits[cell >>> 6] & (1L << cell)) != 0;
+        }
+        if (reservedChunks == null) {
+            return false;
+        }
+        int x = cell / height;
+        int y = cell - x * height;
+        long[] chunk = reservedChunks[chunkIndex(x, y)];
+        return chunk != null && (chunk[x & CHUNK_MASK] & (1L << (y & CHUNK_MASK))) != 0;
+    }
+
+    public boolean isSparse() {
+        return chunks != null;
+    }
+
+    // cells are packed column by column so x * height + y
+    public int cellIndex(int x, int y) {
+        return x * height + y;
+    }
+
+    public int cellX(int cell) {
+        return cell / height;
+    }
+
+    public int cellY(int cell) {
+        return cell % height;
+    }
+
+    public boolean isOccupied(int cell) {
+        if (chunks == null) {
+            return (bits[cell >>> 6] & (1L << cell)) != 0;
+        }
+        int x = cell / height;
+        int y = cell - x * height;
+        long[] chunk = chunks[chunkIndex(x, y)];
+        return chunk != null && (chunk[x & CHUNK_MASK] & (1L << (y & CHUNK_MASK))) != 0;
+    }
+
+    public boolean isOccupied(int x, int y) {
+        return isOccupied(cellIndex(x, y));
+    }
+
+    public void occupy(int cell) {
+        if (chunks == null) {
+            bits[cell >>> 6] |= 1L << cell;
+            if ((free[cell >>> 6] & (1L << cell)) != 0) {
+                free[cell >>> 6] &= ~(1L << cell);
+                addFree(cell >>> 6, -1);
+            }
+            return;
+        }
+        int x = cell / height;
+        int y = cell - x * height;
+        int index = chunkIndex(x, y);
+        long[] chunk = chunks[index];
+        if (chunk == null) {
+            chunk = chunkPool.isEmpty() ? new long[1 << CHUNK_SHIFT] : chunkPool.pop();
+            chunks[index] = chunk;
+        }
+        long mask = 1L << (y & CHUNK_MASK);
+        if ((chunk[x & CHUNK_MASK] & mask) == 0) {
+            chunk[x & CHUNK_MASK] |= mask;
+            chunkCounts[index]++;
+            occupiedCount++;
+        }
+    }
+
+    public void release(int cell) {
+        if (chunks == null) {
+            bits[cell >>> 6] &= ~(1L << cell);
+            if ((reservedBits == null || (reservedBits[cell >>> 6] & (1L << cell)) == 0)
+                    && (free[cell >>> 6] & (1L << cell)) == 0) {
+                free[cell >>> 6] |= 1L << cell;
+                addFree(cell >>> 6, 1);
+            }
+            return;
+        }
+        int x = cell / height;
+        int y = cell - x * height;
+        int index = chunkIndex(x, y);
+        long[] chunk = chunks[index];
+        long mask = 1L << (y & CHUNK_MASK);
+        if (chunk == null || (chunk[x & CHUNK_MASK] & mask) == 0) {
+            return;
+        }
+        chunk[x & CHUNK_MASK] &= ~mask;
+        occupiedCount--;
+        if (--chunkCounts[index] == 0) {
+            chunks[index] = null;
+            chunkPool.push(chunk); // already all zero again
+        }
+    }
+
+    public void clear() {
+        if (chunks == null) {
+            if (wallBits != null) {
+                System.arraycopy(wallBits, 0, bits, 0, bits.length);
+            } else {
+                Arrays.fill(bits, 0L);
+            }
+            rebuildFree();
+            return;
+        }
+        for (int i = 0; i < chunks.length; i++) {
+            if (chunks[i] != null) {
+                Arrays.fill(chunks[i], 0L);
+                chunkPool.push(chunks[i]);
+                chunks[i] = null;
+                chunkCounts[i] = 0;
+            }
+        }
+        occupiedCount = 0;
+        if (wallChunks != null) {
+            for (int i = 0; i < wallChunks.length; i++) {
+                if (wallChunks[i] != null) {
+                    long[] chunk = chunkPool.isEmpty() ? new long[1 << CHUNK_SHIFT] : chunkPool.pop();
+                    System.arraycopy(wallChunks[i], 0, chunk, 0, chunk.length);
+                    int count = 0;
+                    for (long column : chunk) {
+                        count += Long.bitCount(column);
+                    }
+                    chunks[i] = chunk;
+                    chunkCounts[i] = count;
+                    occupiedCount += count;
+                }
+            }
+        }
+    }
+
+    private int chunkIndex(int x, int y) {
+        return (x >>> CHUNK_SHIFT) * chunksY + (y >>> CHUNK_SHIFT);
+    }
+
+    // rebuild a dense grid from the cells the snake covers
+    public void restore(int[] occupiedCells) {
+        if (wallBits != null) {
+            System.arraycopy(wallBits, 0, bits, 0, bits.length);
+        } else {
+            Arrays.fill(bits, 0L);
+        }
+        for (int cell : occupiedCells) {
+            bits[cell >>> 6] |= 1L << cell;
+        }
+        rebuildFree();
+    }
+
+    // free[] from the occupied and reserved bits, then the tree bottom up in O(words)
+    private void rebuildFree() {
+        int words = bits.length;
+        Arrays.fill(freeTree, 0);
+        freeCount = 0;
+        for (int w = 0; w < words; w++) {
+            long word = ~bits[w];
+            if (reservedBits != null) {
+                word &= ~reservedBits[w];
+            }
+            if (w == words - 1 && (cellCount & 63) != 0) {
+                word &= (1L << cellCount) - 1; // past the last cell
+            }
+            free[w] = word;
+            int count = Long.bitCount(word);
+            freeCount += count;
+            int i = w + 1;
+            freeTree[i] += count;
+            int parent = i + (i & -i);
+            if (parent <= words) {
+                freeTree[parent] += freeTree[i];
+            }
+        }
+    }
+
+    private void addFree(int word, int delta) {
+        freeCount += delta;
+        for (int i = word + 1; i < freeTree.length; i += i & -i) {
+            freeTree[i] += delta;
+        }
+    }
+
+    // the k-th free cell (from 0) in index order: walk down the tree to its word, then drop k lower bits
+    private int selectFree(int k) {
+        int word = 0;
+        for (int step = Integer.highestOneBit(freeTree.length - 1); step > 0; step >>= 1) {
+            int next = word + step;
+            if (next < freeTree.length && freeTree[next] <= k) {
+                word = next;
+                k -= freeTree[next];
+            }
+        }
+        long bitsLeft = free[word];
+        for (int i = 0; i < k; i++) {
+            bitsLeft &= bitsLeft - 1;
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(bitsLeft);
+    }
+
+    // uniformly random empty cell, -1 only when the board is genuinely full
+    // dense boards pick from the free set in constant time, sparse boards probe random cells
+    public int randomFreeCell(GameRandom random) {
+        if (chunks == null) {
+            return freeCount == 0 ? -1 : selectFree(random.nextInt(freeCount));
+        }
+        if (occupiedCount >= cellCount) {
+            return -1;
+        }
+        for (int i = 0; i < SAMPLE_ATTEMPTS; i++) {
+            int cell = random.nextInt(cellCount);
+            if (!isOccupied(cell) && !isReserved(cell)) {
+                return cell;
+            }
+        }
+        // almost full, walk from a random start to the next free cell
+        int start = random.nextInt(cellCount);
+        for (int i = 0; i < cellCount; i++) {
+            int cell = start + i < cellCount ? start + i : start + i - cellCount;
+            if (!isOccupied(cell) && !isReserved(cell)) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    public int getFreeCellCount() {
+        return chunks == null ? freeCount : cellCount - occupiedCount;
+    }
+
+    // chunks currently holding at least one occupied cell
+    public int getAllocatedChunks() {
+        if (chunks == null) {
+            return 0;
+        }
+        int count = 0;
+        for (int c : chunkCounts) {
+            if (c > 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getCellCount() {
+        return cellCount;
+    }
+}
@@ -0,0 +1,25 @@
+package GameEngine;
+
+import java.awt.Point;
+
+// the power-up lying on the board, the engine keeps one and moves it around instead of allocating per spawn
+public class PowerUp {
+    private final Point position = new Point();
+    private PowerUpType type;
+
+    PowerUp() {
+    }
+
+    void place(int x, int y, PowerUpType type) {
+        position.setLocation(x, y);
+        this.type = type;
+    }
+
+    public Point getPosition() {
+        return position;
+    }
+
+    public PowerUpType getType() {
+        return type;
+    }
+}
@@ -0,0 +1,82 @@
+package GameEngine;
+
+// every kind of power-up and what it does to the game while active
+// a new power-up is a new constant here plus its spawn weight in config.properties, nothing else switches on the type
+public enum PowerUpType {
+    // the rules stay the same, boards run their clock faster while it is active
+    SPEED("speed", "Speed", 10, Stacking.REFRESH, 1, 2),
+
+    DOUBLE_POINTS("double_points", "Double Points", 10, Stacking.STACK, 3, 1) {
+        @Override
+        void apply(SnakeEngine engine) {
+            engine.setPointsMultiplier(2);
+        }
+
+        @Override
+        void expire(SnakeEngine engine) {
+            engine.setPointsMultiplier(1);
+        }
+    };
+
+    // what picking up a power-up that is already active does
+    public enum Stacking {
+        REFRESH, // the full duration starts over
+        STACK // another full duration is added to what is left, up to maxStacks durations
+    }
+
+    static final PowerUpType[] VALUES = values();
+
+    private final String id;
+    private final String displayName;
+    private final int defaultWeight;
+    private final Stacking stacking;
+    private final int maxStacks;
+    private final int speedFactor;
+
+    PowerUpType(String id, String displayName, int defaultWeight, Stacking stacking, int maxStacks, int speedFactor) {
+        this.id = id;
+        this.displayName = displayName;
+        this.defaultWeight = defaultWeight;
+        this.stacking = stacking;
+        this.maxStacks = maxStacks;
+        this.speedFactor = speedFactor;
+    }
+
+    // effect strategy, called by the engine on the tick that changes it
+    void apply(SnakeEngine engine) {
+    }
+
+    // every tick while active, ticksLeft counts down to 0 on the last one
+    void tick(SnakeEngine engine, long ticksLeft) {
+    }
+
+    void expire(SnakeEngine engine) {
+    }
+
+    // name used in config.properties and replays
+    public String getId() {
+        return id;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    // share of spawns next to food, 80 out of 100 by default
+    public int getDefaultWeight() {
+        return defaultWeight;
+    }
+
+    public Stacking getStacking() {
+        return stacking;
+    }
+
+    public int getMaxStacks() {
+        return maxStacks;
+    }
+
+    // how many times faster the game clock runs while active
+    public int getSpeedFactor() {
+        return speedFactor;
+    }
+}
@@ -0,0 +1,185 @@
+package GameEngine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// a recorded game: the seed and settings plus every applied turn as a varint (tick delta << 2 | direction)
+public class Replay {
+    private static final byte[] MAGIC = {'S', 'N', 'K', 'R'};
+    private static final int VERSION = 1;
+
+    private final int width;
+    private final int height;
+    private final int itemLifetimeTicks;
+    private final int powerUpTicks;
+    private final long seed;
+    private final int tickMillis; // base speed the game was played at, for real-time playback
+    private final int foodWeight;
+    private final int[] powerUpWeights; // by PowerUpType ordinal
+    private final Level level; // embedded whole, null for the open board
+    private final long totalTicks;
+    private final int finalScore;
+    private final int eventCount;
+    private final byte[] events;
+
+    public Replay(int width, int height, int itemLifetimeTicks, int powerUpTicks, long seed, int tickMillis,
+                  int foodWeight, int[] powerUpWeights, Level level, long totalTicks, int finalScore, int eventCount, byte[] events) {
+        this.width = width;
+        this.height = height;
+        this.itemLifetimeTicks = itemLifetimeTicks;
+        this.powerUpTicks = powerUpTicks;
+        this.seed = seed;
+        this.tickMillis = tickMillis;
+        this.foodWeight = foodWeight;
+        this.powerUpWeights = powerUpWeights;
+        this.level = level;
+        this.totalTicks = totalTicks;
+        this.finalScore = finalScore;
+        this.eventCount = eventCount;
+        this.events = events;
+    }
+
+    // a fresh engine set up exactly like the recorded one at tick 0
+    public SnakeEngine createEngine() {
+        SnakeEngine engine = level != null ? new SnakeEngine(level, seed) : new SnakeEngine(width, height, seed);
+        engine.setTimings(itemLifetimeTicks, powerUpTicks);
+        engine.setSpawnWeights(foodWeight, powerUpWeights);
+        engine.reset(seed);
+        return engine;
+    }
+
+    public byte[] encode() {
+        byte[] levelData = level != null ? level.encode() : new byte[0];
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32 + levelData.length + events.length);
+        out.write(MAGIC, 0, MAGIC.length);
+        writeVarLong(out, VERSION);
+        writeVarLong(out, width);
+        writeVarLong(out, height);
+        writeVarLong(out, itemLifetimeTicks);
+        writeVarLong(out, powerUpTicks);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (seed >>> shift));
+        }
+        writeVarLong(out, tickMillis);
+        writeVarLong(out, foodWeight);
+        writeVarLong(out, powerUpWeights.length);
+        for (int weight : powerUpWeights) {
+            writeVarLong(out, weight);
+        }
+        writeVarLong(out, levelData.length);
+        out.write(levelData, 0, levelData.length);
+        writeVarLong(out, totalTicks);
+        writeVarLong(out, finalScore);
+        writeVarLong(out, eventCount);
+        out.write(events, 0, events.length);
+        return out.toByteArray();
+    }
+
+    public static Replay decode(byte[] data) throws IOException {
+        if (data.length < MAGIC.length || !Arrays.equals(Arrays.copyOf(data, MAGIC.length), MAGIC)) {
+            throw new IOException("Not a replay file");
+        }
+        int[] pos = {MAGIC.length};
+        long version = readVarLong(data, pos);
+        if (version != VERSION) {
+            throw new IOException("Unsupported replay version");
+        }
+        int width = (int) readVarLong(data, pos);
+        int height = (int) readVarLong(data, pos);
+        int itemLifetimeTicks = (int) readVarLong(data, pos);
+        int powerUpTicks = (int) readVarLong(data, pos);
+        if (pos[0] + 8 > data.length) {
+            throw new IOException("Truncated replay");
+        }
+        long seed = 0;
+        for (int i = 0; i < 8; i++) {
+            seed = (seed << 8) | (data[pos[0]++] & 0xFF);
+        }
+        int tickMillis = (int) readVarLong(data, pos);
+        int foodWeight = (int) readVarLong(data, pos);
+        int count = (int) readVarLong(data, pos);
+        if (count > PowerUpType.VALUES.length) {
+            throw new IOException("Replay uses unknown power-ups");
+        }
+        int[] powerUpWeights = new int[PowerUpType.VALUES.length];
+        for (int i = 0; i < count; i++) {
+            powerUpWeights[i] = (int) readVarLong(data, pos);
+        }
+        Level level = null;
+        int levelLength = (int) readVarLong(data, pos);
+        if (levelLength < 0 || levelLength > data.length - pos[0]) {
+            throw new IOException("Truncated replay");
+        }
+        if (levelLength > 0) {
+            level = Level.decode(ByteBuffer.wrap(Arrays.copyOfRange(data, pos[0], pos[0] + levelLength)));
+            pos[0] += levelLength;
+        }
+        long totalTicks = readVarLong(data, pos);
+        int finalScore = (int) readVarLong(data, pos);
+        int eventCount = (int) readVarLong(data, pos);
+        byte[] events = Arrays.copyOfRange(data, pos[0], data.length);
+        return new Replay(width, height, itemLifetimeTicks, powerUpTicks, seed, tickMillis, foodWeight, powerUpWeights,
+                level, totalTicks, finalScore, eventCount, events);
+    }
+
+    static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static long readVarLong(byte[] data, int[] pos) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (pos[0] >= data.length) {
+                throw new IOException("Truncated replay");
+            }
+            byte b = data[pos[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in replay");
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getTickMillis() {
+        return tickMillis;
+    }
+
+    public long getTotalTicks() {
+        return totalTicks;
+    }
+
+    public int getFinalScore() {
+        return finalScore;
+    }
+
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    byte[] getEvents() {
+        return events;
+    }
+}
@@ -0,0 +1,147 @@
+package GameEngine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// feeds a recording back into a headless engine, with a snapshot every few ticks so seeking stays cheap
+public class ReplayPlayer {
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 256; // ticks between snapshots
+
+    private final Replay replay;
+    private final byte[] events;
+    private final int snapshotInterval;
+    private final SnakeEngine engine;
+    private int position; // read offset into the event stream
+    private long nextEventTick;
+    private Direction nextEventDirection;
+
+    // checkpoint k holds the state at tick k * snapshotInterval, filled in as playback first passes it
+    private final List<Checkpoint> checkpoints = new ArrayList<>();
+
+    private static class Checkpoint {
+        final EngineSnapshot snapshot;
+        final int position;
+        final long nextEventTick;
+        final Direction nextEventDirection;
+
+        Checkpoint(EngineSnapshot snapshot, int position, long nextEventTick, Direction nextEventDirection) {
+            this.snapshot = snapshot;
+            this.position = position;
+            this.nextEventTick = nextEventTick;
+            this.nextEventDirection = nextEventDirection;
+        }
+    }
+
+    public ReplayPlayer(Replay replay) {
+        this(replay, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    public ReplayPlayer(Replay replay, int snapshotInterval) {
+        this.replay = replay;
+        this.events = replay.getEvents();
+        this.snapshotInterval = Math.max(1, snapshotInterval);
+        this.engine = replay.createEngine();
+        readNextEvent();
+        checkpoints.add(checkpoint());
+    }
+
+    public void restart() {
+        restore(checkpoints.get(0));
+    }
+
+    // advance one tick with the recorded input, false once the recording is over
+    public boolean step() {
+        if (isFinished()) {
+            return false;
+        }
+        Direction turn = null;
+        if (nextEventDirection != null && nextEventTick == engine.getTick() + 1) {
+            turn = nextEventDirection;
+            readNextEvent();
+        }
+        engine.step(turn);
+        long tick = engine.getTick();
+        if (tick % snapshotInterval == 0 && tick / snapshotInterval == checkpoints.size()) {
+            checkpoints.add(checkpoint());
+        }
+        return !isFinished();
+    }
+
+    // run headless up to the given number of ticks, returns how many were simulated
+    public int fastForward(int ticks) {
+        int done = 0;
+        while (done < ticks && step()) {
+            done++;
+        }
+        return done;
+    }
+
+    public void runToEnd() {
+        while (step()) {
+            // nothing to draw, just simulate
+        }
+    }
+
+    // jump to any tick: restore the closest snapshot at or before it, then simulate the rest
+    public void seek(long targetTick) {
+        targetTick = Math.max(0, Math.min(targetTick, replay.getTotalTicks()));
+        long current = engine.getTick();
+        int index = (int) Math.min(targetTick / snapshotInterval, checkpoints.size() - 1);
+        Checkpoint checkpoint = checkpoints.get(index);
+        if (targetTick < current || checkpoint.snapshot.getTick() > current) {
+            restore(checkpoint);
+        }
+        while (engine.getTick() < targetTick && step()) {
+            // at most snapshotInterval steps once the snapshots up to here exist
+        }
+    }
+
+    public boolean isFinished() {
+        return engine.isGameOver() || engine.getTick() >= replay.getTotalTicks();
+    }
+
+    // true when the simulation reproduced the recorded result
+    public boolean matchesRecording() {
+        return engine.getTick() == replay.getTotalTicks() && engine.getScore() == replay.getFinalScore();
+    }
+
+    private Checkpoint checkpoint() {
+        return new Checkpoint(engine.snapshot(), position, nextEventTick, nextEventDirection);
+    }
+
+    private void restore(Checkpoint checkpoint) {
+        engine.restore(checkpoint.snapshot);
+        position = checkpoint.position;
+        nextEventTick = checkpoint.nextEventTick;
+        nextEventDirection = checkpoint.nextEventDirection;
+    }
+
+    private void readNextEvent() {
+        if (position >= events.length) {
+            nextEventDirection = null;
+            return;
+        }
+        long value = 0;
+        for (int shift = 0; position < events.length; shift += 7) {
+            byte b = events[position++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                break;
+            }
+        }
+        nextEventTick += value >>> 2;
+        nextEventDirection = Direction.values()[(int) (value & 3)];
+    }
+
+    public long getTick() {
+        return engine.getTick();
+    }
+
+    public SnakeEngine getEngine() {
+        return engine;
+    }
+
+    public Replay getReplay() {
+        return replay;
+    }
+}
@@ -0,0 +1,61 @@
+package GameEngine;
+
+import java.util.Arrays;
+
+// collects the turns of the running game, appending to a reused byte buffer
+public class ReplayRecorder {
+    private byte[] buffer = new byte[256];
+    private int size;
+    private int eventCount;
+    private long lastTick;
+
+    private int width;
+    private int height;
+    private int itemLifetimeTicks;
+    private int powerUpTicks;
+    private long seed;
+    private int tickMillis;
+    private int foodWeight;
+    private int[] powerUpWeights;
+    private Level level;
+
+    // call right after the engine was reset for a new game
+    public void start(SnakeEngine engine, int tickMillis) {
+        this.tickMillis = tickMillis;
+        width = engine.getWidth();
+        height = engine.getHeight();
+        itemLifetimeTicks = engine.getItemLifetimeTicks();
+        powerUpTicks = engine.getPowerUpTicks();
+        seed = engine.getSeed();
+        foodWeight = engine.getFoodWeight();
+        powerUpWeights = engine.getPowerUpWeights();
+        level = engine.getLevel();
+        size = 0;
+        eventCount = 0;
+        lastTick = 0;
+    }
+
+    // a turn that was passed to step() and produced the given engine tick
+    public void record(long tick, Direction direction) {
+        long value = ((tick - lastTick) << 2) | direction.ordinal();
+        lastTick = tick;
+        eventCount++;
+        while ((value & ~0x7FL) != 0) {
+            put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        put((byte) value);
+    }
+
+    private void put(byte b) {
+        if (size == buffer.length) {
+            buffer = Arrays.copyOf(buffer, size * 2);
+        }
+        buffer[size++] = b;
+    }
+
+    public Replay finish(SnakeEngine engine) {
+        return new Replay(width, height, itemLifetimeTicks, powerUpTicks, seed, tickMillis, foodWeight, powerUpWeights,
+                level, engine.getTick(), engine.getScore(), eventCount, Arrays.copyOf(buffer, size));
+    }
+}
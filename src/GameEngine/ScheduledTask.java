@@ -0,0 +1,28 @@
+package GameEngine;
+
+// a reusable timed callback, linked straight into the scheduler's wheel so rescheduling allocates nothing
+public class ScheduledTask {
+    private final Runnable action;
+
+    ScheduledTask prev;
+    ScheduledTask next;
+    int slot = -1;
+    long deadline;
+
+    public ScheduledTask(Runnable action) {
+        this.action = action;
+    }
+
+    public boolean isScheduled() {
+        return slot >= 0;
+    }
+
+    // tick at which the task will fire, only meaningful while scheduled
+    public long getDeadline() {
+        return deadline;
+    }
+
+    void run() {
+        action.run();
+    }
+}
@@ -0,0 +1,78 @@
+package GameEngine;
+
+// ring buffer of packed cell indices, index 0 is the head
+// starts small and doubles up to the board's cell count, so a huge board doesn't reserve a body for every cell
+public class SnakeBody {
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final int maxLength;
+    private int[] cells;
+    private int head; // slot holding the head cell
+    private int length;
+
+    public SnakeBody(int maxLength) {
+        this.maxLength = maxLength;
+        this.cells = new int[Math.max(1, Math.min(maxLength, INITIAL_CAPACITY))];
+    }
+
+    public void clear() {
+        head = 0;
+        length = 0;
+    }
+
+    public void pushHead(int cell) {
+        if (length == cells.length) {
+            grow();
+        }
+        head = head == 0 ? cells.length - 1 : head - 1;
+        cells[head] = cell;
+        length++;
+    }
+
+    // unroll the ring into a bigger array, head first
+    private void grow() {
+        if (length >= maxLength) {
+            throw new IllegalStateException("Snake body is full");
+        }
+        int[] bigger = new int[(int) Math.min(maxLength, (long) cells.length * 2)];
+        for (int i = 0; i < length; i++) {
+            bigger[i] = cells[slot(i)];
+        }
+        cells = bigger;
+        head = 0;
+    }
+
+    public int popTail() {
+        if (length == 0) {
+            throw new IllegalStateException("Snake body is empty");
+        }
+        length--;
+        return cells[slot(length)];
+    }
+
+    // segment i counted from the head, without boxing
+    public int get(int i) {
+        return cells[slot(i)];
+    }
+
+    public int headCell() {
+        return cells[head];
+    }
+
+    public int tailCell() {
+        return cells[slot(length - 1)];
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public int capacity() {
+        return maxLength;
+    }
+
+    private int slot(int i) {
+        int s = head + i;
+        return s >= cells.length ? s - cells.length : s;
+    }
+}
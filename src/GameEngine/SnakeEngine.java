@@ -0,0 +1,548 @@
+package GameEngine;
+
+import java.awt.Point;
+import java.util.Arrays;
+
+// UI-free game rules, advanced one tick at a time through step()
+public class SnakeEngine {
+
+    public static final int DEFAULT_WIDTH = 80; // number of blocks horizontally
+    public static final int DEFAULT_HEIGHT = 50; // number of blocks vertically
+    public static final int START_X = 5;
+    public static final int START_Y = 5;
+    public static final int DEFAULT_ITEM_LIFETIME_TICKS = 112; // about 9 seconds at the easy speed
+    public static final int DEFAULT_POWER_UP_TICKS = 87; // about 7 seconds at the easy speed
+    public static final int DEFAULT_FOOD_WEIGHT = 80; // against each power-up's default weight
+
+    private final int width;
+    private final int height;
+    private final GameRandom random;
+    private long seed;
+    private GameListener listener;
+
+    private final SnakeBody snake;
+    private final OccupancyGrid occupancy;
+    private final Level level; // null for the open board
+    private final int[] portalEntries; // null when the level has no portals
+    private final int[] portalExits;
+    // the items on the board are reused, food and powerUp point at them while they are out
+    private final Point foodItem = new Point();
+    private final PowerUp powerUpItem = new PowerUp();
+    private Point food;
+    private PowerUp powerUp;
+    private Direction direction = Direction.RIGHT;
+    private boolean isGameOver = false;
+    private int score = 0;
+    private int pointsMultiplier = 1;
+    private long tick = 0;
+
+    private final TickScheduler scheduler = new TickScheduler();
+    private final ScheduledTask itemExpiry = new ScheduledTask(this::expireItem);
+    private int itemLifetimeTicks = DEFAULT_ITEM_LIFETIME_TICKS;
+    private int powerUpTicks = DEFAULT_POWER_UP_TICKS;
+
+    // active effects by power-up ordinal, each with its own expiry task
+    private final int[] effectStacks = new int[PowerUpType.VALUES.length];
+    private final ScheduledTask[] effectExpiry = new ScheduledTask[PowerUpType.VALUES.length];
+    private int activeEffects = 0; // one bit per ordinal
+
+    // spawn odds, food against each power-up
+    private int foodWeight = DEFAULT_FOOD_WEIGHT;
+    private final int[] powerUpWeights = new int[PowerUpType.VALUES.length];
+    private int totalWeight;
+
+    public SnakeEngine() {
+        this(DEFAULT_WIDTH, DEFAULT_HEIGHT, GameRandom.newSeed());
+    }
+
+    // every random decision comes from this seed, so a seed plus the inputs reproduces a game exactly
+    public SnakeEngine(int width, int height, long seed) {
+        this(width, height, seed, null);
+    }
+
+    // a board laid out by the level, its walls live in the occupancy grid like snake segments do
+    public SnakeEngine(Level level, long seed) {
+        this(level.getWidth(), level.getHeight(), seed, level);
+    }
+
+    private SnakeEngine(int width, int height, long seed, Level level) {
+        this.width = width;
+        this.height = height;
+        this.seed = seed;
+        this.random = new GameRandom(seed);
+        this.occupancy = new OccupancyGrid(width, height);
+        this.level = level;
+        if (level != null) {
+            occupancy.setLevel(level);
+        }
+        boolean portals = level != null && level.getPortalCount() > 0;
+        this.portalEntries = portals ? level.getPortalEntries() : null;
+        this.portalExits = portals ? level.getPortalExits() : null;
+        this.snake = new SnakeBody(width * height);
+        for (PowerUpType type : PowerUpType.VALUES) {
+            effectExpiry[type.ordinal()] = new ScheduledTask(() -> expireEffect(type));
+            powerUpWeights[type.ordinal()] = type.getDefaultWeight();
+        }
+        totalWeight = foodWeight + sum(powerUpWeights);
+        reset(seed);
+    }
+
+    public void setListener(GameListener listener) {
+        this.listener = listener;
+    }
+
+    // how long an untouched item stays on the board and how long a power-up lasts, in ticks
+    public void setTimings(int itemLifetimeTicks, int powerUpTicks) {
+        this.itemLifetimeTicks = itemLifetimeTicks;
+        this.powerUpTicks = powerUpTicks;
+    }
+
+    public int getItemLifetimeTicks() {
+        return itemLifetimeTicks;
+    }
+
+    public int getPowerUpTicks() {
+        return powerUpTicks;
+    }
+
+    // relative odds of each spawn being food or a given power-up, weights are indexed by PowerUpType ordinal
+    public void setSpawnWeights(int foodWeight, int[] powerUpWeights) {
+        this.foodWeight = Math.max(0, foodWeight);
+        for (int i = 0; i < this.powerUpWeights.length; i++) {
+            this.powerUpWeights[i] = i < powerUpWeights.length ? Math.max(0, powerUpWeights[i]) : 0;
+        }
+        totalWeight = this.foodWeight + sum(this.powerUpWeights);
+        if (totalWeight == 0) {
+            this.foodWeight = 1; // nothing at all would spawn
+            totalWeight = 1;
+        }
+    }
+
+    private static int sum(int[] values) {
+        int total = 0;
+        for (int value : values) {
+            total += value;
+        }
+        return total;
+    }
+
+    public int getFoodWeight() {
+        return foodWeight;
+    }
+
+    public int[] getPowerUpWeights() {
+        return powerUpWeights.clone();
+    }
+
+    // method for game reset, the next game's seed is drawn from the current stream
+    public void reset() {
+        reset(random.nextLong());
+    }
+
+    // start a new game from the given seed
+    public void reset(long seed) {
+        this.seed = seed;
+        random.setSeed(seed);
+        endAllEffects();
+        snake.clear();
+        occupancy.clear();
+        int startCell = level != null ? level.getStartCell()
+                : occupancy.cellIndex(Math.min(START_X, width - 1), Math.min(START_Y, height - 1));
+        snake.pushHead(startCell);
+        occupancy.occupy(startCell);
+        direction = level != null ? level.getStartDirection() : Direction.RIGHT;
+        isGameOver = false;
+        score = 0;
+        pointsMultiplier = 1;
+        food = null;
+        powerUp = null;
+        tick = 0;
+        scheduler.clear();
+        generateFoodOrPowerUp();
+    }
+
+    // start a game from a given body (head first) instead of a single segment, used by bots and benchmarks
+    public void placeSnake(int[] cells, int length, Direction heading) {
+        reset();
+        snake.clear();
+        occupancy.clear();
+        for (int i = length - 1; i >= 0; i--) {
+            snake.pushHead(cells[i]);
+            occupancy.occupy(cells[i]);
+        }
+        direction = heading;
+        generateFoodOrPowerUp();
+    }
+
+    // copy of the full game state, restoring it and stepping on gives the same game as never stopping
+    public EngineSnapshot snapshot() {
+        int[] body = new int[snake.length()];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = snake.get(i);
+        }
+        long[] effectDeadlines = new long[effectExpiry.length];
+        for (int i = 0; i < effectDeadlines.length; i++) {
+            effectDeadlines[i] = effectExpiry[i].isScheduled() ? effectExpiry[i].getDeadline() : -1;
+        }
+        return new EngineSnapshot(tick, seed, random.getState(), direction, isGameOver, score, pointsMultiplier,
+                food != null ? occupancy.cellIndex(food.x, food.y) : -1,
+                powerUp != null ? occupancy.cellIndex(powerUp.getPosition().x, powerUp.getPosition().y) : -1,
+                powerUp != null ? powerUp.getType() : null,
+                itemExpiry.isScheduled() ? itemExpiry.getDeadline() : -1,
+                effectStacks.clone(), effectDeadlines, body);
+    }
+
+    // jump to a snapshot of this engine's board size, no listener callbacks are fired
+    public void restore(EngineSnapshot snapshot) {
+        tick = snapshot.tick;
+        seed = snapshot.seed;
+        random.setState(snapshot.randomState);
+        direction = snapshot.direction;
+        isGameOver = snapshot.isGameOver;
+        score = snapshot.score;
+        pointsMultiplier = snapshot.pointsMultiplier;
+        food = null;
+        if (snapshot.foodCell >= 0) {
+            foodItem.setLocation(occupancy.cellX(snapshot.foodCell), occupancy.cellY(snapshot.foodCell));
+            food = foodItem;
+        }
+        powerUp = null;
+        if (snapshot.powerUpCell >= 0) {
+            powerUpItem.place(occupancy.cellX(snapshot.powerUpCell), occupancy.cellY(snapshot.powerUpCell), snapshot.powerUpType);
+            powerUp = powerUpItem;
+        }
+        activeEffects = 0;
+        for (int i = 0; i < effectStacks.length; i++) {
+            effectStacks[i] = snapshot.effectStacks[i];
+            if (effectStacks[i] > 0) {
+                activeEffects |= 1 << i;
+            }
+        }
+        snake.clear();
+        for (int i = snapshot.body.length - 1; i >= 0; i--) {
+            snake.pushHead(snapshot.body[i]);
+        }
+        if (!occupancy.isSparse()) {
+            occupancy.restore(snapshot.body);
+        } else {
+            // sparse board, spawns don't depend on any order so the body is all there is to restore
+            occupancy.clear();
+            for (int cell : snapshot.body) {
+                occupancy.occupy(cell);
+            }
+        }
+        scheduler.clear(tick);
+        if (snapshot.itemExpiryDeadline >= 0) {
+            scheduler.schedule(itemExpiry, snapshot.itemExpiryDeadline - tick);
+        }
+        for (int i = 0; i < effectExpiry.length; i++) {
+            if (snapshot.effectDeadlines[i] >= 0) {
+                scheduler.schedule(effectExpiry[i], snapshot.effectDeadlines[i] - tick);
+            }
+        }
+    }
+
+    // advance the game by exactly one tick, returns false once the game is over
+    public boolean step(Direction requested) {
+        if (isGameOver) {
+            return false;
+        }
+        if (requested != null && !requested.isOpposite(direction)) {
+            direction = requested;
+        }
+        tick++;
+        scheduler.advance();
+        if (isGameOver) {
+            return false;
+        }
+        if (activeEffects != 0) {
+            tickEffects();
+        }
+        moveSnake();
+        return !isGameOver;
+    }
+
+    // snake movement
+    private void moveSnake() {
+        int head = snake.headCell();
+        int x = occupancy.cellX(head) + direction.getDx();
+        int y = occupancy.cellY(head) + direction.getDy();
+
+        // wrapping around based on the number of blocks
+        if (x < 0) {
+            x = width - 1;
+        } else if (x >= width) {
+            x = 0;
+        }
+
+        if (y < 0) {
+            y = height - 1;
+        } else if (y >= height) {
+            y = 0;
+        }
+
+        int headCell = occupancy.cellIndex(x, y);
+        if (portalEntries != null) {
+            int portal = Arrays.binarySearch(portalEntries, headCell);
+            if (portal >= 0) {
+                headCell = portalExits[portal];
+                x = occupancy.cellX(headCell);
+                y = occupancy.cellY(headCell);
+            }
+        }
+
+        boolean ateFood = food != null && food.x == x && food.y == y;
+        boolean pickedPowerUp = powerUp != null && powerUp.getPosition().x == x && powerUp.getPosition().y == y;
+
+        // the tail moves out of the way before the head moves in, but only once the snake is known to survive,
+        // a dead snake keeps every segment it had
+        boolean grows = ateFood || pickedPowerUp;
+        if (checkCollision(headCell, grows)) {
+            endGame();
+            return;
+        }
+        if (!grows) {
+            occupancy.release(snake.popTail());
+        }
+        snake.pushHead(headCell);
+        occupancy.occupy(headCell);
+
+        if (ateFood) {
+            score += 10 * pointsMultiplier;
+            if (listener != null) {
+                listener.scoreChanged(score);
+            }
+            generateFoodOrPowerUp();
+        } else if (pickedPowerUp) {
+            PowerUpType picked = powerUp.getType();
+            powerUp = null;
+            applyPowerUpEffect(picked);
+            generateFoodOrPowerUp();
+        }
+    }
+
+    // collision checker, a single lookup instead of walking the body; level walls are in the same grid
+    // the tail's cell counts as free when the tail is about to leave it
+    private boolean checkCollision(int headCell, boolean grows) {
+        return occupancy.isOccupied(headCell) && (grows || headCell != snake.tailCell());
+    }
+
+    private void endGame() {
+        isGameOver = true;
+        powerUp = null;
+        scheduler.cancel(itemExpiry);
+        if (listener != null) {
+            listener.gameOver(score);
+        }
+    }
+
+    // food and power-up generation
+    private void generateFoodOrPowerUp() {
+        int cell = occupancy.randomFreeCell(random);
+        if (cell < 0) {
+            // every cell is covered by the snake, game is over
+            food = null;
+            powerUp = null;
+            endGame();
+            return;
+        }
+        int x = occupancy.cellX(cell);
+        int y = occupancy.cellY(cell);
+
+        // power-ups take the low end of the roll in ordinal order, food the rest; 10% speed, 10% double points by default
+        int roll = random.nextInt(totalWeight);
+        PowerUpType type = null;
+        for (int i = 0; i < powerUpWeights.length; i++) {
+            if (roll < powerUpWeights[i]) {
+                type = PowerUpType.VALUES[i];
+                break;
+            }
+            roll -= powerUpWeights[i];
+        }
+        if (type != null) {
+            powerUpItem.place(x, y, type);
+            powerUp = powerUpItem;
+            food = null;
+        } else {
+            foodItem.setLocation(x, y);
+            food = foodItem;
+            powerUp = null;
+        }
+        scheduler.schedule(itemExpiry, itemLifetimeTicks);
+        if (listener != null) {
+            listener.itemSpawned();
+        }
+    }
+
+    // the food or power-up on the board has been left alone for too long
+    private void expireItem() {
+        if (isGameOver) {
+            return;
+        }
+        food = null;
+        powerUp = null;
+        generateFoodOrPowerUp();
+    }
+
+    // start the effect, or stack or refresh it when it is already running
+    private void applyPowerUpEffect(PowerUpType type) {
+        int i = type.ordinal();
+        if (effectStacks[i] == 0) {
+            effectStacks[i] = 1;
+            activeEffects |= 1 << i;
+            type.apply(this);
+            scheduler.schedule(effectExpiry[i], powerUpTicks);
+        } else if (type.getStacking() == PowerUpType.Stacking.STACK) {
+            effectStacks[i] = Math.min(effectStacks[i] + 1, type.getMaxStacks());
+            long left = effectExpiry[i].getDeadline() - tick;
+            scheduler.schedule(effectExpiry[i], Math.min(left + powerUpTicks, (long) powerUpTicks * type.getMaxStacks()));
+        } else {
+            scheduler.schedule(effectExpiry[i], powerUpTicks);
+        }
+        if (listener != null) {
+            listener.powerUpActivated(type);
+        }
+    }
+
+    private void tickEffects() {
+        for (PowerUpType type : PowerUpType.VALUES) {
+            if (effectStacks[type.ordinal()] > 0) {
+                type.tick(this, effectExpiry[type.ordinal()].getDeadline() - tick);
+            }
+        }
+    }
+
+    // the effect runs out
+    private void expireEffect(PowerUpType type) {
+        int i = type.ordinal();
+        if (effectStacks[i] == 0) {
+            return;
+        }
+        scheduler.cancel(effectExpiry[i]);
+        effectStacks[i] = 0;
+        activeEffects &= ~(1 << i);
+        type.expire(this);
+        if (listener != null) {
+            listener.powerUpDeactivated(type);
+        }
+    }
+
+    private void endAllEffects() {
+        if (activeEffects == 0) {
+            return;
+        }
+        for (PowerUpType type : PowerUpType.VALUES) {
+            expireEffect(type);
+        }
+    }
+
+    // effect strategies change the scoring through this
+    void setPointsMultiplier(int pointsMultiplier) {
+        this.pointsMultiplier = pointsMultiplier;
+    }
+
+    public SnakeBody getSnake() {
+        return snake;
+    }
+
+    public boolean isSnakeAt(int x, int y) {
+        return occupancy.isOccupied(x, y) && (level == null || level.cellType(x, y) != Level.WALL);
+    }
+
+    // snake or wall
+    public boolean isCellOccupied(int cell) {
+        return occupancy.isOccupied(cell);
+    }
+
+    public int getHeadX() {
+        return occupancy.cellX(snake.headCell());
+    }
+
+    public int getHeadY() {
+        return occupancy.cellY(snake.headCell());
+    }
+
+    public int cellX(int cell) {
+        return occupancy.cellX(cell);
+    }
+
+    public int cellY(int cell) {
+        return occupancy.cellY(cell);
+    }
+
+    public Point getFood() {
+        return food;
+    }
+
+    public PowerUp getPowerUp() {
+        return powerUp;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    public boolean isGameOver() {
+        return isGameOver;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getPointsMultiplier() {
+        return pointsMultiplier;
+    }
+
+    public boolean isEffectActive(PowerUpType type) {
+        return effectStacks[type.ordinal()] > 0;
+    }
+
+    public int getEffectStacks(PowerUpType type) {
+        return effectStacks[type.ordinal()];
+    }
+
+    // ticks until the effect ends, 0 when it isn't active
+    public long getEffectTicksLeft(PowerUpType type) {
+        ScheduledTask expiry = effectExpiry[type.ordinal()];
+        return expiry.isScheduled() ? expiry.getDeadline() - tick : 0;
+    }
+
+    // bit 1 << ordinal set for every active effect
+    public int getActiveEffects() {
+        return activeEffects;
+    }
+
+    // how much faster boards should run the clock, every active effect's factor multiplied together
+    public int getSpeedFactor() {
+        int factor = 1;
+        if (activeEffects != 0) {
+            for (PowerUpType type : PowerUpType.VALUES) {
+                if (effectStacks[type.ordinal()] > 0) {
+                    factor *= type.getSpeedFactor();
+                }
+            }
+        }
+        return factor;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
@@ -0,0 +1,119 @@
+package GameEngine;
+
+import java.awt.Point;
+import java.nio.ByteBuffer;
+
+// reinforcement-learning style wrapper: reset(seed), step(action), observations written into caller buffers
+public class SnakeEnv {
+    public static final int ACTION_COUNT = 4; // Direction ordinals: up, down, left, right
+
+    // observation cell values
+    public static final byte EMPTY = 0;
+    public static final byte BODY = 1;
+    public static final byte HEAD = 2;
+    public static final byte FOOD = 3;
+    public static final byte POWER_UP = 4;
+
+    public static final float DEATH_REWARD = -1f;
+    private static final Direction[] ACTIONS = Direction.values();
+
+    private final SnakeEngine engine;
+    private final int cellCount;
+    private int maxSteps = 10_000; // an episode is cut off after this many steps
+    private boolean done;
+
+    public SnakeEnv(int width, int height) {
+        this.engine = new SnakeEngine(width, height, 0);
+        this.cellCount = width * height;
+    }
+
+    public void setMaxSteps(int maxSteps) {
+        this.maxSteps = maxSteps;
+    }
+
+    public void reset(long seed) {
+        engine.reset(seed);
+        done = false;
+    }
+
+    // next episode with a seed drawn from the previous one, so a run stays reproducible
+    public void reset() {
+        engine.reset();
+        done = false;
+    }
+
+    // one tick with the given Direction ordinal; reward is points / 10, or DEATH_REWARD on game over
+    public float step(int action) {
+        if (done) {
+            return 0f;
+        }
+        int scoreBefore = engine.getScore();
+        boolean alive = engine.step(ACTIONS[action]);
+        done = !alive || engine.getTick() >= maxSteps;
+        if (!alive) {
+            return DEATH_REWARD;
+        }
+        return (engine.getScore() - scoreBefore) / 10f;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    // width * height bytes from offset, cell order x * height + y like the engine
+    public void writeObservation(ByteBuffer buffer, int offset) {
+        for (int i = 0; i < cellCount; i++) {
+            buffer.put(offset + i, EMPTY);
+        }
+        SnakeBody snake = engine.getSnake();
+        for (int i = 1; i < snake.length(); i++) {
+            buffer.put(offset + snake.get(i), BODY);
+        }
+        buffer.put(offset + snake.headCell(), HEAD);
+        int food = foodCell();
+        if (food >= 0) {
+            buffer.put(offset + food, FOOD);
+        }
+        int powerUp = powerUpCell();
+        if (powerUp >= 0) {
+            buffer.put(offset + powerUp, POWER_UP);
+        }
+    }
+
+    public void writeObservation(int[] grid, int offset) {
+        for (int i = 0; i < cellCount; i++) {
+            grid[offset + i] = EMPTY;
+        }
+        SnakeBody snake = engine.getSnake();
+        for (int i = 1; i < snake.length(); i++) {
+            grid[offset + snake.get(i)] = BODY;
+        }
+        grid[offset + snake.headCell()] = HEAD;
+        int food = foodCell();
+        if (food >= 0) {
+            grid[offset + food] = FOOD;
+        }
+        int powerUp = powerUpCell();
+        if (powerUp >= 0) {
+            grid[offset + powerUp] = POWER_UP;
+        }
+    }
+
+    private int foodCell() {
+        Point food = engine.getFood();
+        return food != null ? food.x * engine.getHeight() + food.y : -1;
+    }
+
+    private int powerUpCell() {
+        PowerUp powerUp = engine.getPowerUp();
+        return powerUp != null ? powerUp.getPosition().x * engine.getHeight() + powerUp.getPosition().y : -1;
+    }
+
+    public int getObservationSize() {
+        return cellCount;
+    }
+
+    public SnakeEngine getEngine() {
+        return engine;
+    }
+}
@@ -0,0 +1,89 @@
+package GameEngine;
+
+// hashed timing wheel driven by game ticks instead of wall-clock time
+public class TickScheduler {
+    private static final int WHEEL_SIZE = 256; // must be a power of two
+    private static final int MASK = WHEEL_SIZE - 1;
+    private static final int DUE = WHEEL_SIZE; // extra list holding tasks about to fire
+
+    private final ScheduledTask[] heads = new ScheduledTask[WHEEL_SIZE + 1];
+    private long now = 0;
+
+    public long now() {
+        return now;
+    }
+
+    // (re)schedule a task to fire after the given number of ticks
+    public void schedule(ScheduledTask task, long delayTicks) {
+        if (task.isScheduled()) {
+            unlink(task);
+        }
+        task.deadline = now + Math.max(1, delayTicks);
+        link(task, (int) (task.deadline & MASK));
+    }
+
+    public void cancel(ScheduledTask task) {
+        if (task.isScheduled()) {
+            unlink(task);
+        }
+    }
+
+    // move the clock forward one tick and fire whatever is due
+    public void advance() {
+        now++;
+        ScheduledTask task = heads[(int) (now & MASK)];
+        while (task != null) {
+            ScheduledTask next = task.next;
+            if (task.deadline == now) {
+                unlink(task);
+                link(task, DUE);
+            }
+            task = next;
+        }
+        // callbacks may schedule or cancel other tasks, so take them off the due list one at a time
+        while (heads[DUE] != null) {
+            task = heads[DUE];
+            unlink(task);
+            task.run();
+        }
+    }
+
+    // drop every pending task and restart the clock
+    public void clear() {
+        clear(0);
+    }
+
+    // drop every pending task and set the clock to the given tick, used when restoring a snapshot
+    public void clear(long now) {
+        for (int i = 0; i < heads.length; i++) {
+            while (heads[i] != null) {
+                unlink(heads[i]);
+            }
+        }
+        this.now = now;
+    }
+
+    private void link(ScheduledTask task, int slot) {
+        task.slot = slot;
+        task.prev = null;
+        task.next = heads[slot];
+        if (heads[slot] != null) {
+            heads[slot].prev = task;
+        }
+        heads[slot] = task;
+    }
+
+    private void unlink(ScheduledTask task) {
+        if (task.prev != null) {
+            task.prev.next = task.next;
+        } else {
+            heads[task.slot] = task.next;
+        }
+        if (task.next != null) {
+            task.next.prev = task.prev;
+        }
+        task.prev = null;
+        task.next = null;
+        task.slot = -1;
+    }
+}
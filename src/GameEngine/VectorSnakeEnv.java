@@ -0,0 +1,69 @@
+package GameEngine;
+
+import java.nio.ByteBuffer;
+
+// N independent environments stepped in one call, finished ones start their next episode straight away
+public class VectorSnakeEnv {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final SnakeEnv[] envs;
+
+    public VectorSnakeEnv(int count, int width, int height) {
+        envs = new SnakeEnv[count];
+        for (int i = 0; i < count; i++) {
+            envs[i] = new SnakeEnv(width, height);
+        }
+    }
+
+    public void setMaxSteps(int maxSteps) {
+        for (SnakeEnv env : envs) {
+            env.setMaxSteps(maxSteps);
+        }
+    }
+
+    // environment i starts from its own seed derived from the given one
+    public void reset(long seed) {
+        for (int i = 0; i < envs.length; i++) {
+            envs[i].reset(seed + (i + 1) * GOLDEN_GAMMA);
+        }
+    }
+
+    // rewards and dones describe the step just taken, an env that finished is already reset for the next call
+    public void step(int[] actions, float[] rewards, boolean[] dones) {
+        for (int i = 0; i < envs.length; i++) {
+            SnakeEnv env = envs[i];
+            rewards[i] = env.step(actions[i]);
+            dones[i] = env.isDone();
+            if (dones[i]) {
+                env.reset();
+            }
+        }
+    }
+
+    // every observation back to back, count * observation size bytes from offset
+    public void writeObservations(ByteBuffer buffer, int offset) {
+        int size = getObservationSize();
+        for (int i = 0; i < envs.length; i++) {
+            envs[i].writeObservation(buffer, offset + i * size);
+        }
+    }
+
+    public void writeObservations(int[] grid, int offset) {
+        int size = getObservationSize();
+        for (int i = 0; i < envs.length; i++) {
+            envs[i].writeObservation(grid, offset + i * size);
+        }
+    }
+
+    public int getObservationSize() {
+        return envs.length == 0 ? 0 : envs[0].getObservationSize();
+    }
+
+    public int size() {
+        return envs.length;
+    }
+
+    public SnakeEnv get(int i) {
+        return envs[i];
+    }
+}
@@ -0,0 +1,159 @@
+package GameNetwork;
+
+import GameEngine.SnakeBody;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// the client's copy of the shared board, kept in step by applying the server's frames
+// frames arrive on the network thread and painting happens on the EDT, so both lock the board
+public class ClientBoard {
+    private int player = -1; // our slot, -1 while spectating
+    private int width;
+    private int height;
+    private long tick;
+    private int foodCell = -1;
+    private SnakeBody[] bodies = new SnakeBody[0];
+    private boolean[] present = new boolean[0];
+    private int[] scores = new int[0];
+
+    public synchronized void apply(ByteBuffer frame) {
+        byte type = frame.get();
+        switch (type) {
+            case Protocol.WELCOME:
+                player = Protocol.getVarInt(frame) - 1;
+                width = Protocol.getVarInt(frame);
+                height = Protocol.getVarInt(frame);
+                break;
+            case Protocol.KEYFRAME:
+                applyKeyframe(frame);
+                break;
+            case Protocol.TICK:
+                applyTick(frame);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown frame type " + type);
+        }
+    }
+
+    private void applyKeyframe(ByteBuffer frame) {
+        tick = Protocol.getVarLong(frame);
+        foodCell = Protocol.getVarInt(frame) - 1;
+        Arrays.fill(present, false);
+        int count = Protocol.getVarInt(frame);
+        for (int n = 0; n < count; n++) {
+            int slot = Protocol.getVarInt(frame);
+            ensureSlot(slot);
+            present[slot] = true;
+            frame.get(); // alive flag, a dead snake simply has no cells
+            scores[slot] = Protocol.getVarInt(frame);
+            SnakeBody body = bodies[slot];
+            body.clear();
+            int length = Protocol.getVarInt(frame);
+            int[] cells = new int[length];
+            for (int i = 0; i < length; i++) {
+                cells[i] = Protocol.getVarInt(frame);
+            }
+            for (int i = length - 1; i >= 0; i--) {
+                body.pushHead(cells[i]);
+            }
+        }
+    }
+
+    private void applyTick(ByteBuffer frame) {
+        tick = Protocol.getVarLong(frame);
+        while (frame.hasRemaining()) {
+            byte kind = frame.get();
+            int value = Protocol.getVarInt(frame);
+            switch (kind) {
+                case Protocol.SPAWN:
+                    ensureSlot(value);
+                    present[value] = true;
+                    scores[value] = 0;
+                    bodies[value].clear();
+                    bodies[value].pushHead(Protocol.getVarInt(frame));
+                    break;
+                case Protocol.HEAD:
+                    ensureSlot(value);
+                    bodies[value].pushHead(Protocol.getVarInt(frame));
+                    break;
+                case Protocol.TAIL:
+                    ensureSlot(value);
+                    if (bodies[value].length() > 0) {
+                        bodies[value].popTail();
+                    }
+                    break;
+                case Protocol.DIED:
+                    ensureSlot(value);
+                    bodies[value].clear();
+                    break;
+                case Protocol.LEFT:
+                    ensureSlot(value);
+                    present[value] = false;
+                    bodies[value].clear();
+                    break;
+                case Protocol.FOOD:
+                    foodCell = value - 1;
+                    break;
+                case Protocol.SCORE:
+                    ensureSlot(value);
+                    scores[value] = Protocol.getVarInt(frame);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown event " + kind);
+            }
+        }
+    }
+
+    // every event makes sure its slot exists, a keyframe may skip slots that later events name
+    private void ensureSlot(int slot) {
+        if (slot < 0 || slot >= Protocol.MAX_SLOTS) {
+            throw new IllegalArgumentException("Bad player slot " + slot);
+        }
+        if (slot >= bodies.length) {
+            int size = Math.max(slot + 1, bodies.length * 2);
+            bodies = Arrays.copyOf(bodies, size);
+            present = Arrays.copyOf(present, size);
+            scores = Arrays.copyOf(scores, size);
+        }
+        if (bodies[slot] == null) {
+            bodies[slot] = new SnakeBody(width * height);
+        }
+    }
+
+    public int getPlayer() {
+        return player;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public int getFoodCell() {
+        return foodCell;
+    }
+
+    public int getSlotCount() {
+        return bodies.length;
+    }
+
+    public boolean isPresent(int slot) {
+        return present[slot];
+    }
+
+    public int getScore(int slot) {
+        return scores[slot];
+    }
+
+    public SnakeBody getBody(int slot) {
+        return bodies[slot];
+    }
+}
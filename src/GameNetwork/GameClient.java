@@ -0,0 +1,118 @@
+package GameNetwork;
+
+import GameEngine.Direction;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+// connection to a GameServer: frames are read on a background thread into a ClientBoard
+public class GameClient implements Runnable {
+    private final SocketChannel channel;
+    private final ClientBoard board = new ClientBoard();
+    private final Runnable onUpdate;
+    private final ByteBuffer header = ByteBuffer.allocate(4);
+    private final ByteBuffer turn = ByteBuffer.allocate(1);
+    private ByteBuffer frame = ByteBuffer.allocate(16 * 1024);
+    private volatile boolean connected = true;
+
+    // blocks until the server's welcome has arrived, so the board size is known once this returns
+    // onUpdate runs on the network thread after every later frame
+    public GameClient(String host, int port, Runnable onUpdate) throws IOException {
+        this.onUpdate = onUpdate;
+        channel = SocketChannel.open(new InetSocketAddress(host, port));
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        try {
+            readFrame();
+        } catch (IOException ex) {
+            close();
+            throw ex;
+        }
+        Thread thread = new Thread(this, "Game client");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void sendTurn(Direction direction) {
+        if (!connected) {
+            return;
+        }
+        turn.clear();
+        turn.put((byte) direction.ordinal());
+        turn.flip();
+        try {
+            while (turn.hasRemaining()) {
+                channel.write(turn);
+            }
+        } catch (IOException ex) {
+            close();
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (connected) {
+                readFrame();
+                onUpdate.run();
+            }
+        } catch (IOException ex) {
+            if (connected) {
+                System.out.println("Disconnected from server: " + ex.getMessage());
+            }
+        } finally {
+            close();
+            onUpdate.run();
+        }
+    }
+
+    private void readFrame() throws IOException {
+        header.clear();
+        readFully(header);
+        int length = header.getInt(0);
+        if (length < 1 || length > Protocol.MAX_FRAME_BYTES) {
+            throw new IOException("Bad frame length " + length);
+        }
+        if (frame.capacity() < length) {
+            frame = ByteBuffer.allocate(Math.max(length, frame.capacity() * 2));
+        }
+        frame.clear();
+        frame.limit(length);
+        readFully(frame);
+        frame.flip();
+        try {
+            board.apply(frame);
+        } catch (RuntimeException ex) {
+            // a malformed frame ends the connection like a read error instead of killing the reader thread
+            throw new IOException("Bad frame from server: " + ex.getMessage(), ex);
+        }
+    }
+
+    private void readFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("connection closed");
+            }
+        }
+    }
+
+    public void close() {
+        connected = false;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // already closed
+        }
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public ClientBoard getBoard() {
+        return board;
+    }
+}
@@ -0,0 +1,436 @@
+package GameNetwork;
+
+import GameEngine.Direction;
+import GameEngine.MultiSnakeEngine;
+import GameEngine.MultiplayerListener;
+import GameEngine.SnakeBody;
+import GameEngine.SnakeEngine;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+// authoritative multiplayer server: one thread, one selector, every client non-blocking
+// each tick the engine's changes are encoded once and the same bytes go to every client
+public class GameServer implements Runnable, MultiplayerListener {
+    public static final int DEFAULT_TICK_MILLIS = 80; // the easy speed
+    private static final int INITIAL_BACKLOG = 8 * 1024;
+    private static final int MIN_BACKLOG = 256 * 1024;
+    private static final int BACKLOG_KEYFRAMES = 4; // a client further behind than this many keyframes is dropped
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final int port;
+    private final long tickNanos;
+    private final MultiSnakeEngine engine;
+    private final List<Connection> connections = new ArrayList<>();
+    private ByteBuffer events = ByteBuffer.allocate(16 * 1024); // engine changes since the last broadcast
+    private ByteBuffer frame = ByteBuffer.allocate(16 * 1024);
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(256);
+
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread thread;
+    private volatile boolean running;
+
+    // broadcast latency: time from the start of a tick until its frame has been handed to every socket
+    private volatile long totalTicks = 0;
+    private volatile long totalBroadcastNanos = 0;
+    private volatile long maxBroadcastNanos = 0;
+    private volatile long totalFrameBytes = 0;
+    private volatile int clientCount = 0;
+    private volatile long droppedClients = 0;
+    private volatile IOException failure; // why the server stopped, null while it runs or after stop()
+
+    private static class Connection {
+        final SocketChannel channel;
+        SelectionKey key;
+        int player;
+        Direction pendingTurn;
+        ByteBuffer out = ByteBuffer.allocate(INITIAL_BACKLOG); // bytes the socket hasn't taken yet, in write mode
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    public GameServer(int port, int width, int height, int tickMillis) {
+        this.port = port;
+        this.tickNanos = tickMillis * 1_000_000L;
+        this.engine = new MultiSnakeEngine(width, height, Protocol.MAX_SLOTS, System.nanoTime());
+        this.engine.setListener(this);
+    }
+
+    // bind right away so the caller sees a port that is already taken, then serve on a daemon thread
+    public void start() throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        running = true;
+        thread = new Thread(this, "Game server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        if (selector != null) {
+            selector.wakeup();
+        }
+        if (thread != null) {
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        long nextTick = System.nanoTime() + tickNanos;
+        try {
+            while (running) {
+                long waitMillis = (nextTick - System.nanoTime()) / 1_000_000;
+                if (waitMillis > 0) {
+                    selector.select(this::handleKey, waitMillis);
+                } else {
+                    selector.selectNow(this::handleKey);
+                }
+                long now = System.nanoTime();
+                if (now - nextTick >= 0) {
+                    tick();
+                    nextTick += tickNanos;
+                    if (now - nextTick > tickNanos) {
+                        nextTick = now + tickNanos; // fell far behind, don't try to catch up in a burst
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            failure = ex;
+        } finally {
+            for (int i = connections.size() - 1; i >= 0; i--) {
+                disconnect(connections.get(i));
+            }
+            try {
+                serverChannel.close();
+                selector.close();
+            } catch (IOException ignored) {
+                // shutting down anyway
+            }
+        }
+    }
+
+    private void handleKey(SelectionKey key) {
+        if (!key.isValid()) {
+            return;
+        }
+        if (key.isAcceptable()) {
+            accept();
+            return;
+        }
+        Connection connection = (Connection) key.attachment();
+        if (key.isReadable()) {
+            read(connection);
+        }
+        if (key.isValid() && key.isWritable()) {
+            flush(connection);
+        }
+    }
+
+    private void accept() {
+        SocketChannel channel;
+        try {
+            channel = serverChannel.accept();
+            if (channel == null) {
+                return;
+            }
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        } catch (IOException ex) {
+            return;
+        }
+        Connection connection = new Connection(channel);
+        try {
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        } catch (IOException ex) {
+            closeQuietly(channel);
+            return;
+        }
+        connection.player = engine.addPlayer();
+        connections.add(connection);
+        clientCount = connections.size();
+
+        // the new client gets the whole board once, after that only deltas
+        ByteBuffer hello = ByteBuffer.allocate(keyframeSize());
+        int start = Protocol.beginFrame(hello, Protocol.WELCOME);
+        Protocol.putVarInt(hello, connection.player + 1);
+        Protocol.putVarInt(hello, engine.getWidth());
+        Protocol.putVarInt(hello, engine.getHeight());
+        Protocol.endFrame(hello, start);
+        writeKeyframe(hello);
+        hello.flip();
+        enqueue(connection, hello);
+    }
+
+    // room for a few keyframes, so a big board doesn't drop clients that just joined
+    private int backlogLimit() {
+        return Math.max(MIN_BACKLOG, BACKLOG_KEYFRAMES * keyframeSize());
+    }
+
+    private int keyframeSize() {
+        int size = 64;
+        for (int player = 0; player < engine.getMaxPlayers(); player++) {
+            if (engine.isConnected(player)) {
+                size += 16 + (engine.isAlive(player) ? engine.getBody(player).length() * 5 : 0);
+            }
+        }
+        return size;
+    }
+
+    private void writeKeyframe(ByteBuffer buffer) {
+        int start = Protocol.beginFrame(buffer, Protocol.KEYFRAME);
+        Protocol.putVarLong(buffer, engine.getTick());
+        Protocol.putVarInt(buffer, engine.getFoodCell() + 1);
+        int count = 0;
+        for (int player = 0; player < engine.getMaxPlayers(); player++) {
+            if (engine.isConnected(player)) {
+                count++;
+            }
+        }
+        Protocol.putVarInt(buffer, count);
+        for (int player = 0; player < engine.getMaxPlayers(); player++) {
+            if (!engine.isConnected(player)) {
+                continue;
+            }
+            Protocol.putVarInt(buffer, player);
+            boolean alive = engine.isAlive(player);
+            buffer.put((byte) (alive ? 1 : 0));
+            Protocol.putVarInt(buffer, engine.getScore(player));
+            SnakeBody body = engine.getBody(player);
+            int length = alive ? body.length() : 0;
+            Protocol.putVarInt(buffer, length);
+            for (int i = 0; i < length; i++) {
+                Protocol.putVarInt(buffer, body.get(i));
+            }
+        }
+        Protocol.endFrame(buffer, start);
+    }
+
+    private void read(Connection connection) {
+        readBuffer.clear();
+        int read;
+        try {
+            read = connection.channel.read(readBuffer);
+        } catch (IOException ex) {
+            read = -1;
+        }
+        if (read < 0) {
+            disconnect(connection);
+            return;
+        }
+        // one byte per turn, the last one before the tick is the one that counts
+        for (int i = 0; i < read; i++) {
+            int ordinal = readBuffer.get(i);
+            if (ordinal >= 0 && ordinal < DIRECTIONS.length) {
+                connection.pendingTurn = DIRECTIONS[ordinal];
+            }
+        }
+    }
+
+    private void tick() {
+        long start = System.nanoTime();
+        for (int i = 0; i < connections.size(); i++) {
+            Connection connection = connections.get(i);
+            if (connection.pendingTurn != null && connection.player >= 0) {
+                engine.setDirection(connection.player, connection.pendingTurn);
+            }
+            connection.pendingTurn = null;
+        }
+        engine.step();
+
+        // encode once, every client receives the same bytes
+        frame.clear();
+        frame = ensure(frame, events.position() + 16);
+        int frameStart = Protocol.beginFrame(frame, Protocol.TICK);
+        Protocol.putVarLong(frame, engine.getTick());
+        events.flip();
+        frame.put(events);
+        events.clear();
+        Protocol.endFrame(frame, frameStart);
+        frame.flip();
+        for (int i = connections.size() - 1; i >= 0; i--) {
+            frame.rewind();
+            enqueue(connections.get(i), frame);
+        }
+
+        long elapsed = System.nanoTime() - start;
+        totalTicks++;
+        totalBroadcastNanos += elapsed;
+        maxBroadcastNanos = Math.max(maxBroadcastNanos, elapsed);
+        totalFrameBytes += frame.limit();
+    }
+
+    // queue bytes for a client and push as much as the socket takes without blocking
+    private void enqueue(Connection connection, ByteBuffer data) {
+        if (connection.out.remaining() < data.remaining()) {
+            int needed = connection.out.position() + data.remaining();
+            if (needed > backlogLimit()) {
+                droppedClients++; // it is not keeping up
+                disconnect(connection);
+                return;
+            }
+            connection.out = ensure(connection.out, data.remaining());
+        }
+        connection.out.put(data);
+        flush(connection);
+    }
+
+    private void flush(Connection connection) {
+        ByteBuffer out = connection.out;
+        out.flip();
+        try {
+            connection.channel.write(out);
+        } catch (IOException ex) {
+            out.compact();
+            disconnect(connection);
+            return;
+        }
+        out.compact();
+        if (connection.key.isValid()) {
+            connection.key.interestOps(out.position() > 0
+                    ? SelectionKey.OP_READ | SelectionKey.OP_WRITE
+                    : SelectionKey.OP_READ);
+        }
+    }
+
+    private void disconnect(Connection connection) {
+        if (!connections.remove(connection)) {
+            return;
+        }
+        clientCount = connections.size();
+        connection.key.cancel();
+        closeQuietly(connection.channel);
+        if (connection.player >= 0) {
+            engine.removePlayer(connection.player);
+        }
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // already gone
+        }
+    }
+
+    // grow a buffer in write mode so it has room for extra more bytes
+    private static ByteBuffer ensure(ByteBuffer buffer, int extra) {
+        if (buffer.remaining() >= extra) {
+            return buffer;
+        }
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + extra));
+        buffer.flip();
+        bigger.put(buffer);
+        return bigger;
+    }
+
+    private void event(byte kind, int player) {
+        events = ensure(events, 16);
+        events.put(kind);
+        Protocol.putVarInt(events, player);
+    }
+
+    @Override
+    public void playerSpawned(int player, int cell) {
+        event(Protocol.SPAWN, player);
+        Protocol.putVarInt(events, cell);
+    }
+
+    @Override
+    public void headMoved(int player, int cell) {
+        event(Protocol.HEAD, player);
+        Protocol.putVarInt(events, cell);
+    }
+
+    @Override
+    public void tailDropped(int player) {
+        event(Protocol.TAIL, player);
+    }
+
+    @Override
+    public void playerDied(int player) {
+        event(Protocol.DIED, player);
+    }
+
+    @Override
+    public void playerLeft(int player) {
+        event(Protocol.LEFT, player);
+    }
+
+    @Override
+    public void foodSpawned(int cell) {
+        event(Protocol.FOOD, cell + 1);
+    }
+
+    @Override
+    public void scoreChanged(int player, int score) {
+        event(Protocol.SCORE, player);
+        Protocol.putVarInt(events, score);
+    }
+
+    public int getPort() {
+        return serverChannel != null ? serverChannel.socket().getLocalPort() : port;
+    }
+
+    public long getTotalTicks() {
+        return totalTicks;
+    }
+
+    public long getAverageBroadcastNanos() {
+        return totalTicks == 0 ? 0 : totalBroadcastNanos / totalTicks;
+    }
+
+    public long getMaxBroadcastNanos() {
+        return maxBroadcastNanos;
+    }
+
+    public long getAverageFrameBytes() {
+        return totalTicks == 0 ? 0 : totalFrameBytes / totalTicks;
+    }
+
+    public int getClientCount() {
+        return clientCount;
+    }
+
+    public long getDroppedClients() {
+        return droppedClients;
+    }
+
+    public IOException getFailure() {
+        return failure;
+    }
+
+    // usage: GameServer [port] [width] [height] [tick ms]
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Protocol.DEFAULT_PORT;
+        int width = args.length > 1 ? Integer.parseInt(args[1]) : SnakeEngine.DEFAULT_WIDTH;
+        int height = args.length > 2 ? Integer.parseInt(args[2]) : SnakeEngine.DEFAULT_HEIGHT;
+        int tickMillis = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_TICK_MILLIS;
+        GameServer server = new GameServer(port, width, height, tickMillis);
+        server.start();
+        System.out.println("Server listening on port " + server.getPort());
+        server.thread.join();
+        if (server.getFailure() != null) {
+            System.out.println("Server stopped: " + server.getFailure().getMessage());
+        }
+    }
+}
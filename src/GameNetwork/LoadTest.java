@@ -0,0 +1,70 @@
+package GameNetwork;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// many simulated players against a local server over localhost, reports the server's broadcast latency
+// usage: LoadTest [clients] [seconds]
+public class LoadTest {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        GameServer server = new GameServer(0, 200, 150, 50);
+        server.start();
+        InetSocketAddress address = new InetSocketAddress("localhost", server.getPort());
+
+        // all players share one selector and one thread, they read and discard and now and then turn
+        Selector selector = Selector.open();
+        List<SocketChannel> channels = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            SocketChannel channel = SocketChannel.open(address);
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ);
+            channels.add(channel);
+        }
+        System.out.println(clients + " clients connected");
+
+        ByteBuffer sink = ByteBuffer.allocate(64 * 1024);
+        ByteBuffer turn = ByteBuffer.allocate(1);
+        long received = 0;
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        long ticksBefore = server.getTotalTicks();
+        while (System.nanoTime() < end) {
+            selector.select(10);
+            for (SelectionKey key : selector.selectedKeys()) {
+                sink.clear();
+                int read = ((SocketChannel) key.channel()).read(sink);
+                if (read > 0) {
+                    received += read;
+                }
+            }
+            selector.selectedKeys().clear();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < clients / 20 + 1; i++) {
+                turn.clear();
+                turn.put((byte) random.nextInt(4));
+                turn.flip();
+                channels.get(random.nextInt(clients)).write(turn);
+            }
+        }
+        long ticks = server.getTotalTicks() - ticksBefore;
+        System.out.println(ticks + " ticks, " + received / Math.max(1, ticks) / clients + " bytes per client per tick, "
+                + "broadcast avg " + server.getAverageBroadcastNanos() / 1000 + " us, max "
+                + server.getMaxBroadcastNanos() / 1000 + " us, " + server.getAverageFrameBytes() + " bytes per frame, "
+                + server.getDroppedClients() + " clients dropped");
+
+        for (SocketChannel channel : channels) {
+            channel.close();
+        }
+        selector.close();
+        server.stop();
+    }
+}
@@ -0,0 +1,75 @@
+package GameNetwork;
+
+import java.nio.ByteBuffer;
+
+// wire format of the multiplayer server
+// client to server: one byte per turn, the Direction ordinal
+// server to client: frames of [int length][byte type][payload], numbers inside are varints
+public final class Protocol {
+    public static final int DEFAULT_PORT = 5555;
+
+    // frame types
+    public static final byte WELCOME = 1; // player slot + 1 (0 = spectator), width, height
+    public static final byte KEYFRAME = 2; // tick, food + 1, player count, then per player: slot, alive, score, length, cells head first
+    public static final byte TICK = 3; // tick, then events until the end of the frame
+
+    // events inside a TICK frame
+    public static final byte SPAWN = 1; // player, cell
+    public static final byte HEAD = 2; // player, cell
+    public static final byte TAIL = 3; // player, the client drops its own copy of the tail
+    public static final byte DIED = 4; // player
+    public static final byte LEFT = 5; // player
+    public static final byte FOOD = 6; // cell + 1, 0 when the board is full
+    public static final byte SCORE = 7; // player, score
+
+    public static final int FRAME_HEADER = 5; // length int plus type byte
+    public static final int MAX_SLOTS = 512; // player slots on one server
+    public static final int MAX_FRAME_BYTES = 64 * 1024 * 1024; // a client refuses longer frames, even a keyframe is far smaller
+
+    private Protocol() {
+    }
+
+    public static void putVarInt(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    public static void putVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    public static int getVarInt(ByteBuffer buffer) {
+        return (int) getVarLong(buffer);
+    }
+
+    public static long getVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    // reserve the frame header, finish it with endFrame once the payload is written
+    public static int beginFrame(ByteBuffer buffer, byte type) {
+        int start = buffer.position();
+        buffer.putInt(0);
+        buffer.put(type);
+        return start;
+    }
+
+    public static void endFrame(ByteBuffer buffer, int start) {
+        buffer.putInt(start, buffer.position() - start - 4);
+    }
+}
@@ -0,0 +1,191 @@
+package GameNetwork;
+
+import GameEngine.SnakeBody;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.zip.InflaterInputStream;
+
+// follows a spectator stream and keeps a copy of the board it describes
+public class SpectatorReader {
+    private final DataInputStream in;
+    private final int width;
+    private final int height;
+    private final SnakeBody snake;
+    private long tick = -1;
+    private int score;
+    private boolean gameOver;
+    private int foodCell = -1;
+    private int powerUpCell = -1;
+    private int powerUpKind;
+    private int activeEffects; // bit 1 << PowerUpType ordinal per active effect
+    private long keyframes = 0;
+
+    public SpectatorReader(InputStream input) throws IOException {
+        DataInputStream raw = new DataInputStream(new BufferedInputStream(input));
+        byte[] magic = new byte[SpectatorStream.MAGIC.length];
+        raw.readFully(magic);
+        if (!Arrays.equals(magic, SpectatorStream.MAGIC) || raw.readUnsignedByte() != SpectatorStream.VERSION) {
+            throw new IOException("Not a spectator stream");
+        }
+        boolean compressed = raw.readUnsignedByte() == 1;
+        in = compressed ? new DataInputStream(new BufferedInputStream(new InflaterInputStream(raw))) : raw;
+        width = readVarInt();
+        height = readVarInt();
+        snake = new SnakeBody(width * height);
+    }
+
+    // apply the next frame, false at the end of the stream
+    public boolean next() throws IOException {
+        int type;
+        try {
+            type = in.read();
+        } catch (EOFException ex) {
+            return false; // a compressed stream cut off between frames, e.g. the game was killed
+        }
+        if (type < 0) {
+            return false;
+        }
+        if (type == SpectatorStream.KEYFRAME) {
+            tick = readVarLong();
+            score = readVarInt();
+            gameOver = in.readUnsignedByte() == 1;
+            foodCell = readVarInt() - 1;
+            powerUpCell = readVarInt() - 1;
+            powerUpKind = in.readUnsignedByte();
+            activeEffects = in.readUnsignedByte();
+            int length = readVarInt();
+            snake.clear();
+            int[] cells = new int[length];
+            for (int i = 0; i < length; i++) {
+                cells[i] = readVarInt();
+            }
+            for (int i = length - 1; i >= 0; i--) {
+                snake.pushHead(cells[i]);
+            }
+            keyframes++;
+            return true;
+        }
+        if (type != SpectatorStream.TICK) {
+            throw new IOException("Unknown frame " + type);
+        }
+        tick++;
+        while (true) {
+            int event = in.readUnsignedByte();
+            switch (event) {
+                case SpectatorStream.END:
+                    return true;
+                case SpectatorStream.TAIL:
+                    snake.popTail();
+                    break;
+                case SpectatorStream.HEAD:
+                    snake.pushHead(readVarInt());
+                    break;
+                case SpectatorStream.FOOD:
+                    foodCell = readVarInt() - 1;
+                    break;
+                case SpectatorStream.POWER_UP:
+                    powerUpCell = readVarInt() - 1;
+                    powerUpKind = in.readUnsignedByte();
+                    break;
+                case SpectatorStream.SCORE:
+                    score = readVarInt();
+                    break;
+                case SpectatorStream.ACTIVE:
+                    activeEffects = in.readUnsignedByte();
+                    break;
+                case SpectatorStream.GAME_OVER:
+                    gameOver = true;
+                    break;
+                default:
+                    throw new IOException("Unknown event " + event);
+            }
+        }
+    }
+
+    private int readVarInt() throws IOException {
+        return (int) readVarLong();
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Truncated spectator stream");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public SnakeBody getSnake() {
+        return snake;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public int getFoodCell() {
+        return foodCell;
+    }
+
+    public int getPowerUpCell() {
+        return powerUpCell;
+    }
+
+    public int getPowerUpKind() {
+        return powerUpKind;
+    }
+
+    public int getActiveEffects() {
+        return activeEffects;
+    }
+
+    public long getKeyframes() {
+        return keyframes;
+    }
+
+    // usage: SpectatorReader file, prints a summary of an archived stream
+    public static void main(String[] args) throws IOException {
+        long frames = 0;
+        try (InputStream input = Files.newInputStream(Paths.get(args[0]))) {
+            SpectatorReader reader = new SpectatorReader(input);
+            while (reader.next()) {
+                frames++;
+                if (reader.isGameOver() && frames > 1) {
+                    System.out.println("Game over at tick " + reader.getTick() + ", score " + reader.getScore()
+                            + ", length " + reader.getSnake().length());
+                }
+            }
+            System.out.println(frames + " frames, " + reader.getKeyframes() + " keyframes, "
+                    + Files.size(Paths.get(args[0])) + " bytes");
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package GameNetwork;
+
+import GameEngine.PowerUp;
+import GameEngine.SnakeBody;
+import GameEngine.SnakeEngine;
+
+import java.awt.Point;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+// live game as a byte stream for spectators and archives: a keyframe, then a few bytes of deltas per tick
+// the game thread only appends to a bounded buffer, a writer thread opens the file or socket and drains it
+// when the consumer falls behind and the buffer fills up, the backlog is dropped and a keyframe starts over
+public class SpectatorStream implements Runnable {
+    static final byte[] MAGIC = {'S', 'N', 'K', 'S'};
+    static final int VERSION = 1;
+    public static final int DEFAULT_BUFFER_BYTES = 256 * 1024;
+    private static final long COMPRESSED_BATCH_MILLIS = 200; // deflate needs more than one tick of input to pay off
+
+    // frames
+    static final byte KEYFRAME = 1; // tick, score, game over, food + 1, power-up + 1, power-up kind, active effects, length, cells
+    static final byte TICK = 2; // one tick later than the previous frame, events until END
+    // events inside a TICK frame
+    static final byte END = 0;
+    static final byte HEAD = 1; // cell
+    static final byte TAIL = 2;
+    static final byte FOOD = 3; // cell + 1, 0 when gone
+    static final byte POWER_UP = 4; // cell + 1, kind
+    static final byte SCORE = 5; // score
+    static final byte ACTIVE = 6; // active effects, bit 1 << ordinal each
+    static final byte GAME_OVER = 7;
+
+    // power-up kinds on the wire, a single active effect has the same value in the active mask
+    static final int NONE = 0;
+    static final int SPEED = 1;
+    static final int DOUBLE_POINTS = 2;
+
+    private static final long CLOSE_WAIT_MILLIS = 5000; // how long close() waits for the backlog to be written
+
+    // opens the destination on the writer thread, so a slow connect never holds up the board
+    private interface Target {
+        OutputStream open() throws IOException;
+    }
+
+    private final Target target;
+    private final boolean compress;
+    private final long batchMillis;
+    private final int width;
+    private final int height;
+    private final Thread writer;
+    private volatile Thread shutdownHook;
+
+    // ring of whole frames waiting for the writer, guarded by this
+    private final byte[] ring;
+    private int readIndex = 0;
+    private int size = 0;
+    private boolean closed = false;
+    private long dropped = 0; // frames thrown away because the consumer was too slow
+
+    // game thread state, what the spectator has been told so far
+    private ByteBuffer scratch = ByteBuffer.allocate(1024); // grows when a keyframe needs more
+    private boolean needKeyframe = true;
+    private long lastTick = -1;
+    private int lastHead;
+    private int lastTail;
+    private int lastFood;
+    private int lastPowerUp;
+    private int lastScore;
+    private int lastActive;
+    private boolean lastGameOver;
+
+    public SpectatorStream(OutputStream out, boolean compress, int width, int height, int bufferBytes) {
+        this(() -> out, compress, width, height, bufferBytes);
+    }
+
+    private SpectatorStream(Target target, boolean compress, int width, int height, int bufferBytes) {
+        this.target = target;
+        this.compress = compress;
+        this.width = width;
+        this.height = height;
+        this.ring = new byte[bufferBytes];
+        this.batchMillis = compress ? COMPRESSED_BATCH_MILLIS : 0;
+        writer = new Thread(this, "Spectator writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // header first, then everything after it goes through the deflater when compressing
+    private OutputStream start(OutputStream out) throws IOException {
+        out.write(MAGIC);
+        out.write(VERSION);
+        out.write(compress ? 1 : 0);
+        ByteBuffer header = ByteBuffer.allocate(16);
+        Protocol.putVarInt(header, width);
+        Protocol.putVarInt(header, height);
+        OutputStream body = compress
+                ? new DeflaterOutputStream(out, new Deflater(Deflater.BEST_SPEED), 8192, true)
+                : new BufferedOutputStream(out, 8192);
+        body.write(header.array(), 0, header.position());
+        return body;
+    }
+
+    // "path" or "tcp:host:port" as given by -Dsnake.spectate, null when streaming is off
+    public static SpectatorStream open(String target, boolean compress, int width, int height) {
+        if (target == null || target.isBlank()) {
+            return null;
+        }
+        Target destination;
+        if (target.startsWith("tcp:")) {
+            String address = target.substring(4);
+            int colon = address.lastIndexOf(':');
+            int port;
+            try {
+                port = Integer.parseInt(address.substring(colon + 1));
+            } catch (NumberFormatException | StringIndexOutOfBoundsException ex) {
+                System.out.println("Spectator stream unavailable: bad address " + address);
+                return null;
+            }
+            String host = address.substring(0, Math.max(0, colon));
+            destination = () -> {
+                Socket socket = new Socket(host, port);
+                socket.setTcpNoDelay(true);
+                return socket.getOutputStream();
+            };
+        } else {
+            destination = () -> Files.newOutputStream(Paths.get(target));
+        }
+        SpectatorStream stream = new SpectatorStream(destination, compress, width, height, DEFAULT_BUFFER_BYTES);
+        // the writer is a daemon, so without this an exit would lose the backlog and a deflate trailer
+        stream.shutdownHook = new Thread(stream::close, "Spectator close");
+        Runtime.getRuntime().addShutdownHook(stream.shutdownHook);
+        return stream;
+    }
+
+    // call after every engine step and after a reset, never blocks on I/O
+    public void onTick(SnakeEngine engine) {
+        long tick = engine.getTick();
+        scratch.clear();
+        if (needKeyframe || tick != lastTick + 1) {
+            writeKeyframe(engine);
+        } else if (!writeDeltas(engine)) {
+            return; // nothing happened, e.g. a repeated call for the same tick
+        }
+        lastTick = tick;
+        if (!append(scratch.array(), scratch.position())) {
+            // the frame that didn't fit is lost, so the next one has to be a keyframe
+            needKeyframe = true;
+        }
+    }
+
+    private void writeKeyframe(SnakeEngine engine) {
+        SnakeBody snake = engine.getSnake();
+        int needed = 64 + snake.length() * 5;
+        if (scratch.capacity() < needed) {
+            scratch = ByteBuffer.allocate(Math.max(needed, scratch.capacity() * 2));
+        }
+        scratch.put(KEYFRAME);
+        Protocol.putVarLong(scratch, engine.getTick());
+        Protocol.putVarInt(scratch, engine.getScore());
+        scratch.put((byte) (engine.isGameOver() ? 1 : 0));
+        Protocol.putVarInt(scratch, foodCell(engine) + 1);
+        Protocol.putVarInt(scratch, powerUpCell(engine) + 1);
+        scratch.put((byte) kind(engine.getPowerUp()));
+        scratch.put((byte) engine.getActiveEffects());
+        Protocol.putVarInt(scratch, snake.length());
+        for (int i = 0; i < snake.length(); i++) {
+            Protocol.putVarInt(scratch, snake.get(i));
+        }
+        remember(engine);
+        needKeyframe = false;
+    }
+
+    private boolean writeDeltas(SnakeEngine engine) {
+        SnakeBody snake = engine.getSnake();
+        scratch.put(TICK);
+        // same order as the engine: the tail leaves before the head moves in
+        if (snake.tailCell() != lastTail && snake.length() > 0) {
+            scratch.put(TAIL);
+        }
+        if (snake.headCell() != lastHead) {
+            scratch.put(HEAD);
+            Protocol.putVarInt(scratch, snake.headCell());
+        }
+        int food = foodCell(engine);
+        if (food != lastFood) {
+            scratch.put(FOOD);
+            Protocol.putVarInt(scratch, food + 1);
+        }
+        int powerUp = powerUpCell(engine);
+        if (powerUp != lastPowerUp) {
+            scratch.put(POWER_UP);
+            Protocol.putVarInt(scratch, powerUp + 1);
+            scratch.put((byte) kind(engine.getPowerUp()));
+        }
+        if (engine.getScore() != lastScore) {
+            scratch.put(SCORE);
+            Protocol.putVarInt(scratch, engine.getScore());
+        }
+        int active = engine.getActiveEffects();
+        if (active != lastActive) {
+            scratch.put(ACTIVE);
+            scratch.put((byte) active);
+        }
+        if (engine.isGameOver() && !lastGameOver) {
+            scratch.put(GAME_OVER);
+        }
+        scratch.put(END);
+        boolean advanced = engine.getTick() != lastTick;
+        remember(engine);
+        return advanced;
+    }
+
+    private void remember(SnakeEngine engine) {
+        SnakeBody snake = engine.getSnake();
+        lastHead = snake.headCell();
+        lastTail = snake.tailCell();
+        lastFood = foodCell(engine);
+        lastPowerUp = powerUpCell(engine);
+        lastScore = engine.getScore();
+        lastActive = engine.getActiveEffects();
+        lastGameOver = engine.isGameOver();
+    }
+
+    private static int foodCell(SnakeEngine engine) {
+        Point food = engine.getFood();
+        return food != null ? food.x * engine.getHeight() + food.y : -1;
+    }
+
+    private static int powerUpCell(SnakeEngine engine) {
+        PowerUp powerUp = engine.getPowerUp();
+        return powerUp != null ? powerUp.getPosition().x * engine.getHeight() + powerUp.getPosition().y : -1;
+    }
+
+    // ordinal + 1, so SPEED and DOUBLE_POINTS below
+    static int kind(PowerUp powerUp) {
+        return powerUp != null ? powerUp.getType().ordinal() + 1 : NONE;
+    }
+
+    // copy a whole frame into the ring, or drop everything queued when it doesn't fit
+    private synchronized boolean append(byte[] data, int length) {
+        if (closed) {
+            return true;
+        }
+        if (length > ring.length - size) {
+            dropped++;
+            readIndex = 0;
+            size = 0;
+            return false;
+        }
+        int writeIndex = (readIndex + size) % ring.length;
+        int first = Math.min(length, ring.length - writeIndex);
+        System.arraycopy(data, 0, ring, writeIndex, first);
+        System.arraycopy(data, first, ring, 0, length - first);
+        size += length;
+        notifyAll();
+        return true;
+    }
+
+    @Override
+    public void run() {
+        byte[] chunk = new byte[ring.length];
+        OutputStream out = null;
+        try {
+            out = start(target.open());
+            while (true) {
+                int length;
+                synchronized (this) {
+                    while (size == 0 && !closed) {
+                        wait();
+                    }
+                    if (size == 0) {
+                        break;
+                    }
+                    long deadline = System.currentTimeMillis() + batchMillis;
+                    long left;
+                    while (!closed && size < ring.length / 2 && (left = deadline - System.currentTimeMillis()) > 0) {
+                        wait(left);
+                    }
+                    length = size;
+                    int first = Math.min(length, ring.length - readIndex);
+                    System.arraycopy(ring, readIndex, chunk, 0, first);
+                    System.arraycopy(ring, 0, chunk, first, length - first);
+                    readIndex = (readIndex + length) % ring.length;
+                    size = 0;
+                }
+                out.write(chunk, 0, length);
+                out.flush(); // a sync flush when compressing, spectators see each batch right away
+            }
+        } catch (IOException | RuntimeException ex) {
+            System.out.println("Spectator stream closed: " + ex.getMessage());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            synchronized (this) {
+                closed = true;
+            }
+            if (out != null) {
+                try {
+                    out.close(); // writes the deflate trailer
+                } catch (IOException ignored) {
+                    // nothing left to do
+                }
+            }
+        }
+    }
+
+    // writes out what is queued, ends the stream and waits for the writer to finish
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        if (Thread.currentThread() != writer) {
+            try {
+                writer.join(CLOSE_WAIT_MILLIS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        Thread hook = shutdownHook;
+        if (hook != null && Thread.currentThread() != hook) {
+            shutdownHook = null;
+            try {
+                Runtime.getRuntime().removeShutdownHook(hook);
+            } catch (IllegalStateException ignored) {
+                // already shutting down, the hook runs anyway
+            }
+        }
+    }
+
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
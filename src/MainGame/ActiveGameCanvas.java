@@ -0,0 +1,488 @@
+package MainGame;
+import GameDependencies.*;
+import GameEngine.*;
+import GameNetwork.SpectatorStream;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.awt.event.KeyListener;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.locks.LockSupport;
+
+// optional active-rendering board: page-flipped Canvas, fixed-timestep loop on its own thread
+public class ActiveGameCanvas extends Canvas implements Runnable, KeyListener, GameListener {
+
+    private final int BLOCK_SIZE = 10;
+    private final int BOARD_WIDTH; // the default board or the level's
+    private final int BOARD_HEIGHT;
+    private final Level level; // picked in the menu, null for the open board
+    private final int COLOR_CHANGE_INTERVAL = 200; // ms between color changes
+    private final int ITEM_LIFETIME = 9000;
+    private final int POWER_UP_DURATION = 7000;
+    private static final boolean SYNC_TOOLKIT = System.getProperty("os.name", "").toLowerCase().contains("linux");
+
+    // engine state is only touched by the loop thread, the EDT talks to it through these fields
+    private final SnakeEngine engine;
+    private final InputQueue inputQueue = new InputQueue(4); // filled on the EDT, drained by the loop thread
+    private volatile int baseDelay = GameBoard.EASY_SPEED;
+    private volatile boolean resetRequested = false;
+    private volatile boolean paused = false;
+    private volatile boolean running = false;
+    private volatile boolean gameOver = false; // mirrors the engine for the EDT
+    private volatile Color snakeColor;
+    private long tickNanos;
+    private Thread loopThread;
+
+    // previous head and tail cells, interpolated towards the current ones while rendering
+    private int previousHead;
+    private int previousTail;
+
+    private Color gameOverTextColor = Color.BLACK;
+    private Color cycledSnakeColor = null;
+    private long nextColorChange = 0;
+    private Image gridImage;
+    private int gameOverTextX = -1, gameOverTextY, retryTextX, retryTextY;
+    private final GameRandom random = new GameRandom(GameRandom.newSeed()); // colors only, the engine has its own seed
+    private final Color[] palette = GameBoard.randomPalette(random, GameBoard.PALETTE_SIZE);
+    private final ReplayRecorder recorder = new ReplayRecorder();
+    private ReplayStore replayStore;
+    private final SpectatorStream spectator;
+
+    private final ScorePanel scorePanel;
+    private final SettingsDialog settingsDialog;
+    private final ConfigManager configManager;
+    private Leaderboard leaderboard;
+    private volatile String difficulty = "Easy";
+    private long gameStartTime = System.currentTimeMillis();
+
+    // frame, tick and input timings of the loop thread, M shows them over the board
+    private final GameMetrics metrics = new GameMetrics(GameBoard.METRICS);
+    private volatile boolean showMetrics = false;
+    private String[] overlayLines = new String[0];
+    private volatile long overlayRefreshedAt = System.nanoTime();
+    private final Rectangle overlayBounds = new Rectangle(4, 4, 360, 0);
+
+    public ActiveGameCanvas(ScorePanel scorePanel, SettingsDialog settingsDialog, Level level) {
+        this.level = level;
+        BOARD_WIDTH = level != null ? level.getWidth() : SnakeEngine.DEFAULT_WIDTH;
+        BOARD_HEIGHT = level != null ? level.getHeight() : SnakeEngine.DEFAULT_HEIGHT;
+        spectator = SpectatorStream.open(System.getProperty("snake.spectate"),
+                Boolean.getBoolean("snake.spectateCompress"), BOARD_WIDTH, BOARD_HEIGHT);
+        setPreferredSize(new Dimension(BOARD_WIDTH * BLOCK_SIZE, BOARD_HEIGHT * BLOCK_SIZE));
+        setBackground(GameBoard.BACKGROUND_COLOR);
+        setIgnoreRepaint(true); // every frame comes from the loop thread
+
+        this.scorePanel = scorePanel;
+        this.settingsDialog = settingsDialog;
+        this.configManager = new ConfigManager();
+        this.snakeColor = configManager.getSnakeColor();
+        scorePanel.checkHighScore(configManager.getHighScore());
+        configManager.startWatching(config -> {
+            snakeColor = config.getSnakeColor(); // the speed power-up still overrides it while active
+            SwingUtilities.invokeLater(() -> scorePanel.checkHighScore(config.getHighScore()));
+        });
+
+        this.engine = level != null ? new SnakeEngine(level, GameRandom.newSeed())
+                : new SnakeEngine(BOARD_WIDTH, BOARD_HEIGHT, GameRandom.newSeed());
+        this.engine.setListener(this);
+        applyDifficultySpeed();
+        applySpawnWeights();
+        engine.reset(engine.getSeed()); // first item expires on the difficulty's timings too
+        recorder.start(engine, baseDelay);
+        if (spectator != null) {
+            spectator.onTick(engine);
+        }
+        rememberEnds();
+        metrics.setConfiguredInterval(baseDelay);
+        metrics.register();
+
+        setFocusable(true);
+        addKeyListener(this);
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        createBufferStrategy(2);
+        running = true;
+        loopThread = new Thread(this, "Snake render loop");
+        loopThread.setDaemon(true);
+        loopThread.start();
+    }
+
+    @Override
+    public void removeNotify() {
+        running = false;
+        if (loopThread != null) {
+            try {
+                loopThread.join(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        super.removeNotify();
+    }
+
+    public void resetGame() {
+        resetRequested = true;
+    }
+
+    public void setLeaderboard(Leaderboard leaderboard) {
+        this.leaderboard = leaderboard;
+    }
+
+    public void setReplayStore(ReplayStore replayStore) {
+        this.replayStore = replayStore;
+    }
+
+    // the canvas is going away, stop the loop and finish what is still being written
+    public void dispose() {
+        running = false;
+        if (loopThread != null && loopThread != Thread.currentThread()) {
+            try {
+                loopThread.join(); // the loop may still be writing a tick to the spectator
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (spectator != null) {
+            spectator.close();
+        }
+        configManager.close();
+    }
+
+    public void setDifficulty(String difficulty, int delay) {
+        this.difficulty = difficulty;
+        setTimerDelay(delay);
+    }
+
+    public void setTimerDelay(int delay) {
+        baseDelay = delay;
+        metrics.setConfiguredInterval(delay);
+    }
+
+    public void setSnakeColor(Color color) {
+        this.snakeColor = color;
+        configManager.setSnakeColor(color);
+        configManager.saveProperties();
+    }
+
+    @Override
+    public void run() {
+        long frameNanos = 1_000_000_000L / refreshRate();
+        long previous = System.nanoTime();
+        long lag = 0;
+
+        while (running) {
+            long now = System.nanoTime();
+            long elapsed = now - previous;
+            previous = now;
+            boolean measuring = metrics.isEnabled();
+            if (measuring) {
+                metrics.recordFrame(elapsed);
+            }
+
+            if (resetRequested) {
+                resetRequested = false;
+                doReset();
+                lag = 0;
+            }
+            if (paused || engine.isGameOver()) {
+                lag = 0;
+                metrics.restartTickClock(); // time spent paused or dead is not timer drift
+            } else {
+                lag += elapsed;
+                // fixed timestep: catch up on every tick that is due before drawing
+                while (lag >= tickNanos && !engine.isGameOver()) {
+                    long tickStart = measuring ? System.nanoTime() : 0;
+                    if (measuring) {
+                        metrics.tickStarted(tickStart);
+                    }
+                    rememberEnds();
+                    int appliedBefore = inputQueue.getApplied();
+                    Direction turn = inputQueue.poll(engine.getDirection(), System.nanoTime());
+                    if (measuring && inputQueue.getApplied() != appliedBefore) {
+                        metrics.recordInputLatency(inputQueue.getLastLatencyNanos());
+                    }
+                    if (turn != null) {
+                        recorder.record(engine.getTick() + 1, turn);
+                    }
+                    engine.step(turn);
+                    if (spectator != null) {
+                        spectator.onTick(engine);
+                    }
+                    lag -= tickNanos;
+                    if (measuring) {
+                        metrics.recordTick(System.nanoTime() - tickStart);
+                    }
+                }
+            }
+            if (now - nextColorChange >= 0) {
+                changeColors();
+                nextColorChange = now + COLOR_CHANGE_INTERVAL * 1_000_000L;
+            }
+
+            if (showMetrics && now - overlayRefreshedAt >= GameBoard.OVERLAY_REFRESH_NANOS) {
+                overlayLines = metrics.overlayLines();
+                overlayRefreshedAt = now;
+            }
+
+            long paintStart = measuring ? System.nanoTime() : 0;
+            render(Math.min(1.0, lag / (double) tickNanos));
+            if (measuring) {
+                metrics.recordPaint(System.nanoTime() - paintStart);
+            }
+
+            // wait out the rest of the frame instead of spinning
+            long remaining = frameNanos - (System.nanoTime() - now);
+            if (remaining > 0) {
+                LockSupport.parkNanos(remaining);
+            }
+        }
+    }
+
+    private int refreshRate() {
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        if (gc != null) {
+            int rate = gc.getDevice().getDisplayMode().getRefreshRate();
+            if (rate != DisplayMode.REFRESH_RATE_UNKNOWN && rate > 0) {
+                return rate;
+            }
+        }
+        return 60;
+    }
+
+    private void doReset() {
+        applyDifficultySpeed(); // before the reset, a replay starts the engine with the same timings
+        applySpawnWeights();
+        engine.reset();
+        gameOver = false;
+        metrics.restartTickClock();
+        recorder.start(engine, baseDelay);
+        if (spectator != null) {
+            spectator.onTick(engine);
+        }
+        inputQueue.clear();
+        gameStartTime = System.currentTimeMillis();
+        cycledSnakeColor = null;
+        rememberEnds();
+        SwingUtilities.invokeLater(() -> {
+            scorePanel.updateScore(0);
+            scorePanel.updatePowerUp("None");
+            scorePanel.checkHighScore(configManager.getHighScore());
+        });
+    }
+
+    private void applySpawnWeights() {
+        GameConfig config = configManager.getConfig();
+        engine.setSpawnWeights(config.getFoodWeight(), config.getPowerUpWeights());
+    }
+
+    private void applyDifficultySpeed() {
+        tickNanos = baseDelay * 1_000_000L;
+        engine.setTimings(ITEM_LIFETIME / baseDelay, POWER_UP_DURATION / baseDelay);
+    }
+
+    private void rememberEnds() {
+        previousHead = engine.getSnake().headCell();
+        previousTail = engine.getSnake().tailCell();
+    }
+
+    private void changeColors() {
+        if (engine.isGameOver()) {
+            gameOverTextColor = palette[random.nextInt(GameBoard.PALETTE_SIZE)];
+        } else if (engine.getSpeedFactor() > 1) {
+            cycledSnakeColor = palette[random.nextInt(GameBoard.PALETTE_SIZE)];
+        }
+    }
+
+    private void render(double alpha) {
+        BufferStrategy strategy = getBufferStrategy();
+        if (strategy == null) {
+            return;
+        }
+        do {
+            do {
+                Graphics g = strategy.getDrawGraphics();
+                try {
+                    draw(g, alpha);
+                } finally {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        if (SYNC_TOOLKIT) {
+            Toolkit.getDefaultToolkit().sync(); // flush the X11 pipeline so frames are not batched
+        }
+    }
+
+    private void draw(Graphics g, double alpha) {
+        if (gridImage == null) {
+            // the level never changes, so its walls are drawn once into the background
+            gridImage = GameBoard.createGridImage(getGraphicsConfiguration(), getWidth(), getHeight(), getBackground(), BLOCK_SIZE);
+            if (level != null) {
+                Graphics gridGraphics = gridImage.getGraphics();
+                GameBoard.paintLevel(gridGraphics, level, 0, 0, BOARD_WIDTH, BOARD_HEIGHT, BLOCK_SIZE);
+                gridGraphics.dispose();
+            }
+        }
+        g.drawImage(gridImage, 0, 0, null);
+
+        SnakeBody snake = engine.getSnake();
+        g.setColor(cycledSnakeColor != null ? cycledSnakeColor : snakeColor);
+        if (engine.isGameOver()) {
+            alpha = 1.0;
+        }
+        // body without the head, the head slides in from its previous cell
+        for (int i = 1; i < snake.length(); i++) {
+            int cell = snake.get(i);
+            g.fillRect(engine.cellX(cell) * BLOCK_SIZE, engine.cellY(cell) * BLOCK_SIZE, BLOCK_SIZE, BLOCK_SIZE);
+        }
+        fillBetween(g, previousHead, snake.headCell(), alpha);
+        if (previousTail != snake.tailCell()) {
+            // the vacated tail cell drains away towards the new tail
+            fillBetween(g, previousTail, snake.tailCell(), alpha);
+        }
+
+        Point food = engine.getFood();
+        if (food != null) {
+            g.setColor(Color.RED);
+            g.fillRect(food.x * BLOCK_SIZE, food.y * BLOCK_SIZE, BLOCK_SIZE, BLOCK_SIZE);
+        }
+        PowerUp powerUp = engine.getPowerUp();
+        if (powerUp != null) {
+            g.setColor(Color.BLUE);
+            g.fillRect(powerUp.getPosition().x * BLOCK_SIZE, powerUp.getPosition().y * BLOCK_SIZE, BLOCK_SIZE, BLOCK_SIZE);
+        }
+
+        if (engine.isGameOver()) {
+            if (gameOverTextX < 0) {
+                FontMetrics gameOverFm = g.getFontMetrics(GameBoard.GAME_OVER_FONT);
+                FontMetrics retryFm = g.getFontMetrics(GameBoard.RETRY_FONT);
+                gameOverTextX = (getWidth() - gameOverFm.stringWidth(GameBoard.GAME_OVER_TEXT)) / 2;
+                gameOverTextY = (getHeight() - gameOverFm.getHeight()) / 2;
+                retryTextX = (getWidth() - retryFm.stringWidth(GameBoard.RETRY_TEXT)) / 2;
+                retryTextY = gameOverTextY + gameOverFm.getHeight() + 10;
+            }
+            g.setColor(gameOverTextColor);
+            g.setFont(GameBoard.GAME_OVER_FONT);
+            g.drawString(GameBoard.GAME_OVER_TEXT, gameOverTextX, gameOverTextY);
+            g.setFont(GameBoard.RETRY_FONT);
+            g.drawString(GameBoard.RETRY_TEXT, retryTextX, retryTextY);
+        }
+
+        if (showMetrics) {
+            GameBoard.paintOverlay(g, overlayLines, overlayBounds);
+        }
+    }
+
+    // a block interpolated between two neighbouring cells, jumps straight to the target across the wrap
+    private void fillBetween(Graphics g, int from, int to, double alpha) {
+        int fromX = engine.cellX(from);
+        int fromY = engine.cellY(from);
+        int toX = engine.cellX(to);
+        int toY = engine.cellY(to);
+        if (Math.abs(toX - fromX) + Math.abs(toY - fromY) != 1) {
+            fromX = toX;
+            fromY = toY;
+        }
+        int x = (int) Math.round((fromX + (toX - fromX) * alpha) * BLOCK_SIZE);
+        int y = (int) Math.round((fromY + (toY - fromY) * alpha) * BLOCK_SIZE);
+        g.fillRect(x, y, BLOCK_SIZE, BLOCK_SIZE);
+    }
+
+    // engine callbacks, run on the loop thread
+
+    @Override
+    public void scoreChanged(int score) {
+        SwingUtilities.invokeLater(() -> scorePanel.updateScore(score));
+    }
+
+    @Override
+    public void itemSpawned() {
+    }
+
+    @Override
+    public void powerUpActivated(PowerUpType type) {
+        effectsChanged();
+    }
+
+    @Override
+    public void powerUpDeactivated(PowerUpType type) {
+        effectsChanged();
+    }
+
+    // the loop runs at the difficulty's speed times whatever the active effects add
+    private void effectsChanged() {
+        int speedFactor = engine.getSpeedFactor();
+        tickNanos = baseDelay * 1_000_000L / speedFactor;
+        if (speedFactor == 1) {
+            cycledSnakeColor = null;
+        }
+        String effects = ScorePanel.describeEffects(engine); // read here, the engine belongs to the loop thread
+        SwingUtilities.invokeLater(() -> scorePanel.updatePowerUp(effects));
+    }
+
+    @Override
+    public void gameOver(int score) {
+        gameOver = true;
+        if (leaderboard != null) {
+            leaderboard.record(score, engine.getSnake().length(), difficulty, System.currentTimeMillis() - gameStartTime);
+        }
+        if (replayStore != null) {
+            replayStore.save(recorder.finish(engine));
+        }
+        SwingUtilities.invokeLater(() -> {
+            scorePanel.checkHighScore(configManager.getHighScore());
+            if (score > configManager.getHighScore()) {
+                configManager.setHighScore(score);
+                configManager.saveProperties();
+            }
+        });
+    }
+
+    @Override
+    public void keyTyped(KeyEvent e) {
+    }
+
+    @Override
+    public void keyPressed(KeyEvent e) {
+        int key = e.getKeyCode();
+        if (key == KeyEvent.VK_UP || key == KeyEvent.VK_W) {
+            queueTurn(Direction.UP);
+        } else if (key == KeyEvent.VK_DOWN || key == KeyEvent.VK_S) {
+            queueTurn(Direction.DOWN);
+        } else if (key == KeyEvent.VK_LEFT || key == KeyEvent.VK_A) {
+            queueTurn(Direction.LEFT);
+        } else if (key == KeyEvent.VK_RIGHT || key == KeyEvent.VK_D) {
+            queueTurn(Direction.RIGHT);
+        } else if (key == KeyEvent.VK_SPACE && gameOver) {
+            resetGame();
+        } else if (key == KeyEvent.VK_P) {
+            paused = !paused;
+        } else if (key == KeyEvent.VK_M) {
+            showMetrics = !showMetrics;
+            metrics.setEnabled(showMetrics || GameBoard.METRICS);
+            overlayRefreshedAt = System.nanoTime() - GameBoard.OVERLAY_REFRESH_NANOS; // refresh on the next frame
+        } else if (key == KeyEvent.VK_ESCAPE && settingsDialog != null) {
+            SwingUtilities.invokeLater(() -> {
+                boolean wasPaused = paused;
+                paused = true; // the game waits while the settings are open
+                settingsDialog.setVisible(true);
+                paused = wasPaused;
+            });
+        }
+    }
+
+    // a full queue drops the turn, the metrics count how often that happens
+    private void queueTurn(Direction direction) {
+        if (!inputQueue.offer(direction, System.nanoTime()) && metrics.isEnabled()) {
+            metrics.recordDroppedTurn();
+        }
+    }
+
+    @Override
+    public void keyReleased(KeyEvent e) {
+    }
+}
@@ -1,101 +1,144 @@
 package MainGame;
 import GameDependencies.*;
+import GameEngine.*;
+import GameNetwork.SpectatorStream;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
-import java.util.ArrayList;
-import java.util.Random;
+import java.awt.image.BufferedImage;
 
-public class GameBoard extends JPanel implements ActionListener, KeyListener {
+public class GameBoard extends JPanel implements ActionListener, KeyListener, GameListener {
 
     private final int BLOCK_SIZE = 10;
-    private final int BOARD_WIDTH = 80; // number of blocks horizontally
-    private final int BOARD_HEIGHT = 50; // number of blocks vertically
-    private ArrayList<Point> snake;
-    private Point food;
-    private PowerUp powerUp;
-    private int direction = KeyEvent.VK_RIGHT;
-    private boolean isGameOver = false;
-
+    private final int BOARD_WIDTH; // number of blocks horizontally, boardWidth in config.properties or the level's
+    private final int BOARD_HEIGHT; // number of blocks vertically, boardHeight in config.properties or the level's
+    private final Level level; // picked in the menu, null for the open board
+    private final int VIEW_COLUMNS = SnakeEngine.DEFAULT_WIDTH; // most blocks shown at once
+    private final int VIEW_ROWS = SnakeEngine.DEFAULT_HEIGHT;
+    // boards bigger than the view are drawn through a camera that follows the head
+    private final boolean cameraMode;
+    private final int viewColumns;
+    private final int viewRows;
+    private int cameraX, cameraY; // board cell shown in the top left corner
+    private SnakeEngine engine;
+    private final InputQueue inputQueue = new InputQueue(INPUT_QUEUE_SIZE);
+    private static final int INPUT_QUEUE_SIZE = 4; // turns that can be buffered ahead of the snake
+
+    // the only Swing timer, every other timed effect runs on game ticks
     private Timer timer;
-    private Timer powerUpTimer;
-    private Timer colorChangeTimer;
-    private Timer expirationTimer;
-    private Timer gameOverColorChangeTimer;
-    private int score = 0;
-    private boolean doublePointsActive = false;
+    private final TickScheduler uiClock = new TickScheduler();
+    private final ScheduledTask colorChangeTask = new ScheduledTask(this::changeSnakeColor);
+    private final ScheduledTask gameOverColorChangeTask = new ScheduledTask(this::changeGameOverTextColor);
+    private boolean paused = false;
+    private final int COLOR_CHANGE_INTERVAL = 200; // ms between color changes
+    private final int ITEM_LIFETIME = 9000; // ms before untouched food or power-up moves
+    private final int POWER_UP_DURATION = 7000; // ms a power-up stays active
     private Color gameOverTextColor = Color.BLACK;
     private Color snakeColor;
 
     private ScorePanel scorePanel;
     private SettingsDialog settingsDialog;
     private ConfigManager configManager;
+    private Leaderboard leaderboard;
+    private long gameStartTime = System.currentTimeMillis();
 
     private String currentDifficulty = "Easy";
-    private final int EASY_SPEED = 80;
-    private final int MEDIUM_SPEED = 50;
-    private final int HARD_SPEED = 30;
-    private String activePowerUpType = null;
-
-    private long lastKeyPressTime = 0;
-    private final int KEY_PRESS_DELAY = 80;
-
-    private Random random = new Random();
+    static final int EASY_SPEED = 80;
+    static final int MEDIUM_SPEED = 50;
+    static final int HARD_SPEED = 30;
+
+    // cosmetic colors get their own stream so they never disturb the game's seed
+    private GameRandom random = new GameRandom(GameRandom.newSeed());
+    // flashing colors are picked from a fixed palette so a color change allocates nothing
+    static final int PALETTE_SIZE = 64;
+    private final Color[] palette = randomPalette(random, PALETTE_SIZE);
+    private final ReplayRecorder recorder = new ReplayRecorder();
+    private ReplayStore replayStore;
+    private Autopilot autopilot; // created on first use, its buffers are as big as the board
+    private boolean autopilotEnabled = false; // B toggles the computer player, e.g. for demos
+    // -Dsnake.spectate=<file> or tcp:<host>:<port> streams the game live, -Dsnake.spectateCompress=true deflates it
+    private final SpectatorStream spectator;
+
+    // damage tracking, a tick normally only repaints the cells that changed
+    private boolean fullRepaintNeeded = true;
+
+    // cached render layers, the grid is drawn once and blitted every frame
+    static final Color BACKGROUND_COLOR = new Color(20, 20, 20);
+    static final Color GRID_COLOR = new Color(30, 30, 30);
+    static final Font GAME_OVER_FONT = new Font("Helvetica", Font.BOLD, 30);
+    static final Font RETRY_FONT = new Font("Helvetica", Font.PLAIN, 20);
+    static final String GAME_OVER_TEXT = "Game Over";
+    static final String RETRY_TEXT = "Press SPACEBAR to Retry";
+    // level cells by type: empty, wall, no spawn, portal
+    static final Color[] LEVEL_COLORS = {null, new Color(110, 110, 110), new Color(40, 28, 28), new Color(190, 90, 220)};
+    private Image gridImage;
+    private final Rectangle clipBounds = new Rectangle();
+    private int textLayoutWidth = -1;
+    private int textLayoutHeight = -1;
+    private int gameOverTextX, gameOverTextY;
+    private int retryTextX, retryTextY;
+
+    // M shows the metrics overlay, -Dsnake.metrics=true records from the start for JMX clients
+    static final boolean METRICS = Boolean.getBoolean("snake.metrics");
+    private static final Font OVERLAY_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+    private static final Color OVERLAY_COLOR = new Color(0, 0, 0, 170);
+    static final long OVERLAY_REFRESH_NANOS = 500_000_000L; // the text is rebuilt twice a second
+    private final GameMetrics metrics = new GameMetrics(METRICS);
+    private boolean showMetrics = false;
+    private String[] overlayLines = new String[0];
+    private long overlayRefreshedAt = 0;
+    private final Rectangle overlayBounds = new Rectangle(4, 4, 360, 0);
 
     public GameBoard(ScorePanel scorePanel, SettingsDialog settingsDialog) {
-        // set board size
-        setPreferredSize(new Dimension(BOARD_WIDTH * BLOCK_SIZE, BOARD_HEIGHT * BLOCK_SIZE));
-
+        this(scorePanel, settingsDialog, null);
+    }
 
+    public GameBoard(ScorePanel scorePanel, SettingsDialog settingsDialog, Level level) {
         this.snakeColor = Color.GREEN; // default snake color
         this.scorePanel = scorePanel;
-        this.settingsDialog = new SettingsDialog(
-                (JFrame) SwingUtilities.getWindowAncestor(this),
-                new RestartButtonListener(),
-                new DifficultyButtonListener(),
-                new ColorChangeListener()
-        );
         this.configManager = new ConfigManager();
+        this.level = level;
+
+        // set board size, the panel never grows past the view
+        BOARD_WIDTH = level != null ? level.getWidth() : configManager.getConfig().getBoardWidth();
+        BOARD_HEIGHT = level != null ? level.getHeight() : configManager.getConfig().getBoardHeight();
+        viewColumns = Math.min(BOARD_WIDTH, VIEW_COLUMNS);
+        viewRows = Math.min(BOARD_HEIGHT, VIEW_ROWS);
+        cameraMode = BOARD_WIDTH > VIEW_COLUMNS || BOARD_HEIGHT > VIEW_ROWS;
+        setPreferredSize(new Dimension(viewColumns * BLOCK_SIZE, viewRows * BLOCK_SIZE));
+        spectator = SpectatorStream.open(System.getProperty("snake.spectate"),
+                Boolean.getBoolean("snake.spectateCompress"), BOARD_WIDTH, BOARD_HEIGHT);
+
         this.snakeColor = configManager.getSnakeColor();
         scorePanel.checkHighScore(configManager.getHighScore());
-
-        this.snake = new ArrayList<>();
-        this.snake.add(new Point(50, 50));
-        generateFoodOrPowerUp();
+        configManager.startWatching(config -> SwingUtilities.invokeLater(() -> configReloaded(config)));
 
         this.timer = new Timer(EASY_SPEED, this);
         currentDifficulty = "Easy"; // default difficulty
+        metrics.setConfiguredInterval(EASY_SPEED);
+        metrics.register();
+
+        this.engine = level != null ? new SnakeEngine(level, GameRandom.newSeed())
+                : new SnakeEngine(BOARD_WIDTH, BOARD_HEIGHT, GameRandom.newSeed());
+        this.engine.setListener(this);
+        updateEngineTimings();
+        applySpawnWeights();
+        engine.reset(engine.getSeed()); // first item expires on the easy timings too
+        updateCamera();
+        recorder.start(engine, timer.getDelay());
+        if (spectator != null) {
+            spectator.onTick(engine);
+        }
 
         timer.start();
 
         setFocusable(true);
         addKeyListener(this);
 
-        setBackground(new Color(20, 20, 20));
-
-        expirationTimer = new Timer(9000, new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                if (food != null) {
-                    food = null;
-                }
-                if (powerUp != null) {
-                    powerUp = null;
-                }
-                generateFoodOrPowerUp();
-                repaint();
-            }
-        });
-        expirationTimer.setRepeats(false);
-    }
-
-    @Override
-    public void addNotify() {
-        super.addNotify();
-        generateFoodOrPowerUp();
+        setBackground(BACKGROUND_COLOR);
     }
 
     // method for game reset
@@ -103,40 +146,26 @@ public class GameBoard extends JPanel implements ActionListener, KeyListener {
 
         // Stop the timer before changing the delay
         timer.stop();
+        uiClock.clear();
+        paused = false;
 
-        // Reset game state variables
-        if (activePowerUpType != null) {
-            resetPowerUpEffect(activePowerUpType);
-            activePowerUpType = null;
-        }
-        this.snake.clear();
-        this.snake.add(new Point(50, 50));
-        this.direction = KeyEvent.VK_RIGHT;
-        this.isGameOver = false;
-        this.score = 0;
-        this.doublePointsActive = false;
-        this.powerUp = null;
-        scorePanel.updateScore(score);
-        scorePanel.updatePowerUp("None");
-
+        // timings first, a replay starts the engine with the same ones
         setSpeedForDifficulty();
 
-        timer.start();
-
-        if (powerUpTimer != null) {
-            powerUpTimer.stop();
-        }
-        if (colorChangeTimer != null) {
-            colorChangeTimer.stop();
-        }
-        if (expirationTimer != null) {
-            expirationTimer.stop();
-        }
-        if (gameOverColorChangeTimer != null) {
-            gameOverColorChangeTimer.stop();
-        }
+        // Reset game state variables
+        applySpawnWeights(); // config may have been edited since the last game
+        engine.reset();
+        updateCamera();
+        recorder.start(engine, timer.getDelay());
+        if (spectator != null) {
+            spectator.onTick(engine);
+        }
+        inputQueue.clear();
+        metrics.restartTickClock();
+        gameStartTime = System.currentTimeMillis();
+        scorePanel.updateScore(engine.getScore());
+        scorePanel.updatePowerUp("None");
 
-        generateFoodOrPowerUp();
         repaint();
         scorePanel.checkHighScore(configManager.getHighScore());
     }
@@ -144,84 +173,336 @@ public class GameBoard extends JPanel implements ActionListener, KeyListener {
     // speed and difficulty equivalence
     private void setSpeedForDifficulty() {
         timer.stop();
+        setTimerDelay(difficultyDelay());
+        if (!paused) {
+            timer.start();
+        }
+    }
+
+    private int difficultyDelay() {
+        return delayFor(currentDifficulty);
+    }
 
-        switch (currentDifficulty) {
-            case "Easy":
-                setTimerDelay(EASY_SPEED);
-                break;
+    // base timer delay of a difficulty, the active canvas ticks at the same speeds
+    static int delayFor(String difficulty) {
+        switch (difficulty) {
             case "Medium":
-                setTimerDelay(MEDIUM_SPEED);
-                break;
+                return MEDIUM_SPEED;
             case "Hard":
-                setTimerDelay(HARD_SPEED);
-                break;
+                return HARD_SPEED;
+            default:
+                return EASY_SPEED;
         }
+    }
 
-        timer.start();
+    // the settings dialog's choice, also the table finished games go into on the leaderboard
+    public void setDifficulty(String difficulty, int delay) {
+        currentDifficulty = difficulty;
+        setTimerDelay(delay);
     }
 
     public void setTimerDelay(int delay) {
         timer.setDelay(delay);
-        System.out.println("Timer delay set to: " + delay + " ms"); // indicate speed adjustments
+        updateEngineTimings();
+        metrics.setConfiguredInterval(delay); // the metrics overlay shows the delay in use
+    }
+
+    // convert the wall-clock durations into ticks at the difficulty's base speed, never the boosted one,
+    // so a speed power-up never changes how many ticks items and effects last
+    private void updateEngineTimings() {
+        int delay = difficultyDelay();
+        engine.setTimings(ITEM_LIFETIME / delay, POWER_UP_DURATION / delay);
+    }
+
+    static Color[] randomPalette(GameRandom random, int size) {
+        Color[] colors = new Color[size];
+        for (int i = 0; i < size; i++) {
+            colors[i] = new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256));
+        }
+        return colors;
+    }
+
+    private void applySpawnWeights() {
+        GameConfig config = configManager.getConfig();
+        engine.setSpawnWeights(config.getFoodWeight(), config.getPowerUpWeights());
+    }
+
+    private int ticksFor(int millis) {
+        return Math.max(1, millis / timer.getDelay());
+    }
+
+    // pausing stops the one timer, which freezes every scheduled effect with it
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+        metrics.restartTickClock(); // time spent paused is not timer drift
+        if (paused) {
+            timer.stop();
+        } else {
+            timer.start();
+        }
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public void setLeaderboard(Leaderboard leaderboard) {
+        this.leaderboard = leaderboard;
+    }
+
+    public void setReplayStore(ReplayStore replayStore) {
+        this.replayStore = replayStore;
+    }
+
+    // the board is going away, stop the clock and finish what is still being written
+    public void dispose() {
+        timer.stop();
+        if (spectator != null) {
+            spectator.close();
+        }
+        configManager.close();
+    }
+
+    public SnakeEngine getEngine() {
+        return engine;
     }
 
     @Override
     protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
+        long paintStart = metrics.isEnabled() ? System.nanoTime() : 0;
+
+        // only the cells inside the clip need drawing
+        Rectangle clip = clipBounds;
+        clip.setBounds(0, 0, getWidth(), getHeight());
+        g.getClipBounds(clip);
+        int firstX = Math.max(0, clip.x / BLOCK_SIZE);
+        int firstY = Math.max(0, clip.y / BLOCK_SIZE);
+        int lastX = Math.min(BOARD_WIDTH - 1, (clip.x + clip.width) / BLOCK_SIZE);
+        int lastY = Math.min(BOARD_HEIGHT - 1, (clip.y + clip.height) / BLOCK_SIZE);
+
+        // background and grid in a single blit, clipped to the damaged area
+        if (gridImage == null || gridImage.getWidth(null) != getWidth() || gridImage.getHeight(null) != getHeight()) {
+            gridImage = createGridImage();
+        }
+        g.drawImage(gridImage, 0, 0, null);
+
+        if (engine != null && cameraMode) {
+            paintView(g);
+        } else if (engine != null) {
+            g.setColor(snakeColor);
+            SnakeBody snake = engine.getSnake();
+            int clipCells = (lastX - firstX + 1) * (lastY - firstY + 1);
+            if (clipCells < snake.length()) {
+                // small damage region, look the cells up in the occupancy grid
+                for (int x = firstX; x <= lastX; x++) {
+                    for (int y = firstY; y <= lastY; y++) {
+                        if (engine.isSnakeAt(x, y)) {
+                            g.fillRect(x * BLOCK_SIZE, y * BLOCK_SIZE, BLOCK_SIZE, BLOCK_SIZE);
+                        }
+                    }
+                }
+            } else {
+                for (int i = 0; i < snake.length(); i++) {
+                    int cell = snake.get(i);
+                    g.fillRect(engine.cellX(cell) * BLOCK_SIZE, engine.cellY(cell) * BLOCK_SIZE, BLOCK_SIZE, BLOCK_SIZE);
+                }
+            }
+
+            Point food = engine.getFood();
+            if (food != null) {
+                g.setColor(Color.RED);
+                g.fillRect(food.x * BLOCK_SIZE, food.y * BLOCK_SIZE, BLOCK_SIZE, BLOCK_SIZE);
+            }
 
-        g.setColor(new Color(30, 30, 30));
-        for (int i = 0; i <= getWidth(); i += BLOCK_SIZE) {
-            g.drawLine(i, 0, i, getHeight());
+            PowerUp powerUp = engine.getPowerUp();
+            if (powerUp != null) {
+                g.setColor(Color.BLUE);
+                g.fillRect(powerUp.getPosition().x * BLOCK_SIZE, powerUp.getPosition().y * BLOCK_SIZE, BLOCK_SIZE, BLOCK_SIZE);
+            }
         }
-        for (int i = 0; i <= getHeight(); i += BLOCK_SIZE) {
-            g.drawLine(0, i, getWidth(), i);
+
+        // game over screen
+        if (engine != null && engine.isGameOver()) {
+            if (textLayoutWidth != getWidth() || textLayoutHeight != getHeight()) {
+                layoutGameOverText(g);
+            }
+            g.setColor(gameOverTextColor);
+            g.setFont(GAME_OVER_FONT);
+            g.drawString(GAME_OVER_TEXT, gameOverTextX, gameOverTextY);
+            g.setFont(RETRY_FONT);
+            g.drawString(RETRY_TEXT, retryTextX, retryTextY);
         }
 
-        if (snake != null) {
-            g.setColor(snakeColor);
-            for (Point p : snake) {
-                g.fillRect(p.x, p.y, BLOCK_SIZE, BLOCK_SIZE);
+        if (showMetrics) {
+            paintOverlay(g, overlayLines, overlayBounds);
+        }
+        if (metrics.isEnabled()) {
+            metrics.recordPaint(System.nanoTime() - paintStart);
+        }
+    }
+
+    // camera view of a board larger than the panel, only the visible cells are looked up
+    private void paintView(Graphics g) {
+        if (level != null) {
+            paintLevel(g, level, cameraX, cameraY, viewColumns, viewRows, BLOCK_SIZE);
+        }
+        g.setColor(snakeColor);
+        for (int sx = 0; sx < viewColumns; sx++) {
+            int x = cameraX + sx < BOARD_WIDTH ? cameraX + sx : cameraX + sx - BOARD_WIDTH;
+            for (int sy = 0; sy < viewRows; sy++) {
+                int y = cameraY + sy < BOARD_HEIGHT ? cameraY + sy : cameraY + sy - BOARD_HEIGHT;
+                if (engine.isSnakeAt(x, y)) {
+                    g.fillRect(sx * BLOCK_SIZE, sy * BLOCK_SIZE, BLOCK_SIZE, BLOCK_SIZE);
+                }
             }
         }
 
+        Point food = engine.getFood();
         if (food != null) {
             g.setColor(Color.RED);
-            g.fillRect(food.x, food.y, BLOCK_SIZE, BLOCK_SIZE);
+            paintViewCell(g, food.x, food.y);
         }
 
+        PowerUp powerUp = engine.getPowerUp();
         if (powerUp != null) {
             g.setColor(Color.BLUE);
-            g.fillRect(powerUp.getPosition().x, powerUp.getPosition().y, BLOCK_SIZE, BLOCK_SIZE);
+            paintViewCell(g, powerUp.getPosition().x, powerUp.getPosition().y);
         }
+    }
 
-        // game over screen
-        if (isGameOver) {
-            g.setColor(gameOverTextColor);
-            String gameOverText = "Game Over";
-            String retryText = "Press SPACEBAR to Retry";
+    // fill a board cell if the camera can see it
+    private void paintViewCell(Graphics g, int x, int y) {
+        int sx = Math.floorMod(x - cameraX, BOARD_WIDTH);
+        int sy = Math.floorMod(y - cameraY, BOARD_HEIGHT);
+        if (sx < viewColumns && sy < viewRows) {
+            g.fillRect(sx * BLOCK_SIZE, sy * BLOCK_SIZE, BLOCK_SIZE, BLOCK_SIZE);
+        }
+    }
+
+    // translucent box in the top left corner, p50 / p99 / max per line
+    // the metrics text on a dark box, bounds.height is updated to what was drawn
+    static void paintOverlay(Graphics g, String[] lines, Rectangle bounds) {
+        g.setFont(OVERLAY_FONT);
+        int lineHeight = g.getFontMetrics().getHeight();
+        bounds.height = lines.length * lineHeight + 8;
+        g.setColor(OVERLAY_COLOR);
+        g.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+        g.setColor(Color.WHITE);
+        for (int i = 0; i < lines.length; i++) {
+            g.drawString(lines[i], bounds.x + 6, bounds.y + 4 + (i + 1) * lineHeight - 3);
+        }
+    }
+
+    // static background layer, rebuilt only when the panel size changes; a level that fits the panel is part of it
+    private Image createGridImage() {
+        Image image = createGridImage(getGraphicsConfiguration(), getWidth(), getHeight(), getBackground(), BLOCK_SIZE);
+        if (level != null && !cameraMode) {
+            Graphics g = image.getGraphics();
+            paintLevel(g, level, 0, 0, viewColumns, viewRows, BLOCK_SIZE);
+            g.dispose();
+        }
+        return image;
+    }
+
+    // the level's cells in a view whose top left corner shows board cell (cameraX, cameraY)
+    static void paintLevel(Graphics g, Level level, int cameraX, int cameraY, int columns, int rows, int blockSize) {
+        int width = level.getWidth();
+        int height = level.getHeight();
+        for (int sx = 0; sx < columns; sx++) {
+            int x = cameraX + sx < width ? cameraX + sx : cameraX + sx - width;
+            for (int sy = 0; sy < rows; sy++) {
+                int y = cameraY + sy < height ? cameraY + sy : cameraY + sy - height;
+                int type = level.cellType(x, y);
+                if (type != Level.EMPTY) {
+                    g.setColor(LEVEL_COLORS[type]);
+                    g.fillRect(sx * blockSize, sy * blockSize, blockSize, blockSize);
+                }
+            }
+        }
+    }
 
-            g.setFont(new Font("Helvetica", Font.BOLD, 30));
-            FontMetrics gameOverFm = g.getFontMetrics();
-            int gameOverTextWidth = gameOverFm.stringWidth(gameOverText);
-            int gameOverTextHeight = gameOverFm.getHeight();
+    static Image createGridImage(GraphicsConfiguration gc, int width, int height, Color background, int blockSize) {
+        width = Math.max(1, width);
+        height = Math.max(1, height);
+        Image image = gc != null
+                ? gc.createCompatibleImage(width, height)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+
+        Graphics g = image.getGraphics();
+        g.setColor(background);
+        g.fillRect(0, 0, width, height);
+        g.setColor(GRID_COLOR);
+        for (int i = 0; i <= width; i += blockSize) {
+            g.drawLine(i, 0, i, height);
+        }
+        for (int i = 0; i <= height; i += blockSize) {
+            g.drawLine(0, i, width, i);
+        }
+        g.dispose();
+        return image;
+    }
 
-            int x = (getWidth() - gameOverTextWidth) / 2;
-            int y = (getHeight() - gameOverTextHeight) / 2;
+    // text positions only depend on the panel size, so measure them once
+    private void layoutGameOverText(Graphics g) {
+        FontMetrics gameOverFm = g.getFontMetrics(GAME_OVER_FONT);
+        int gameOverTextWidth = gameOverFm.stringWidth(GAME_OVER_TEXT);
+        int gameOverTextHeight = gameOverFm.getHeight();
 
-            g.drawString(gameOverText, x, y);
+        gameOverTextX = (getWidth() - gameOverTextWidth) / 2;
+        gameOverTextY = (getHeight() - gameOverTextHeight) / 2;
 
-            g.setFont(new Font("Helvetica", Font.PLAIN, 20));
-            FontMetrics retryFm = g.getFontMetrics();
-            int retryTextWidth = retryFm.stringWidth(retryText);
+        FontMetrics retryFm = g.getFontMetrics(RETRY_FONT);
+        int retryTextWidth = retryFm.stringWidth(RETRY_TEXT);
 
-            int retryTextX = (getWidth() - retryTextWidth) / 2;
-            int retryTextY = y + gameOverTextHeight + 10; // 10 pixels below the game over text
+        retryTextX = (getWidth() - retryTextWidth) / 2;
+        retryTextY = gameOverTextY + gameOverTextHeight + 10; // 10 pixels below the game over text
 
-            g.drawString(retryText, retryTextX, retryTextY);
+        textLayoutWidth = getWidth();
+        textLayoutHeight = getHeight();
+    }
 
+    private void repaintCell(int x, int y) {
+        if (!cameraMode) {
+            repaint(x * BLOCK_SIZE, y * BLOCK_SIZE, BLOCK_SIZE, BLOCK_SIZE);
         }
     }
 
+    // keep the head in the middle of the view, wrapping like the board does
+    private void updateCamera() {
+        cameraX = Math.floorMod(engine.getHeadX() - viewColumns / 2, BOARD_WIDTH);
+        cameraY = Math.floorMod(engine.getHeadY() - viewRows / 2, BOARD_HEIGHT);
+    }
+
+    private void repaintCell(Point p) {
+        if (p != null) {
+            repaintCell(p.x, p.y);
+        }
+    }
+
+    private void repaintCell(PowerUp p) {
+        if (p != null) {
+            repaintCell(p.getPosition());
+        }
+    }
+
+    // everything has to be redrawn, e.g. after a reset or a color change
+    private void requestFullRepaint() {
+        fullRepaintNeeded = true;
+    }
+
+    // created on first use so the board can also be built without a display
+    private SettingsDialog getSettingsDialog() {
+        if (settingsDialog == null) {
+            settingsDialog = new SettingsDialog(
+                    (JFrame) SwingUtilities.getWindowAncestor(this),
+                    new RestartButtonListener(),
+                    new DifficultyButtonListener(),
+                    new ColorChangeListener()
+            );
+        }
+        return settingsDialog;
+    }
+
     private class RestartButtonListener implements ActionListener {
         @Override
         public void actionPerformed(ActionEvent e) {
@@ -234,14 +515,12 @@ public class GameBoard extends JPanel implements ActionListener, KeyListener {
         @Override
         public void actionPerformed(ActionEvent e) {
             String selectedDifficulty = settingsDialog.getSelectedDifficulty();
-            if (selectedDifficulty != null) {
-                currentDifficulty = selectedDifficulty;
-                System.out.println("Difficulty changed to: " + currentDifficulty);
-                resetGame();
-                requestFocusInWindow();
-            } else {
-                System.out.println("No difficulty selected.");
+            if (selectedDifficulty == null) {
+                return; // nothing picked, keep the current difficulty
             }
+            currentDifficulty = selectedDifficulty;
+            resetGame();
+            requestFocusInWindow();
         }
     }
 
@@ -253,231 +532,144 @@ public class GameBoard extends JPanel implements ActionListener, KeyListener {
         }
     }
 
-    // snake movement binds
-    private void moveSnake() {
-        Point head = snake.get(0);
-        Point newHead = new Point(head);
+    // engine callbacks
 
-        switch (direction) {
-            case KeyEvent.VK_UP:
-                newHead.y -= BLOCK_SIZE;
-                break;
-            case KeyEvent.VK_DOWN:
-                newHead.y += BLOCK_SIZE;
-                break;
-            case KeyEvent.VK_LEFT:
-                newHead.x -= BLOCK_SIZE;
-                break;
-            case KeyEvent.VK_RIGHT:
-                newHead.x += BLOCK_SIZE;
-                break;
-        }
-
-        // wrapping around based on the number of blocks
-        if (newHead.x < 0) {
-            newHead.x = (BOARD_WIDTH - 1) * BLOCK_SIZE;
-        } else if (newHead.x >= BOARD_WIDTH * BLOCK_SIZE) {
-            newHead.x = 0;
-        }
-
-        if (newHead.y < 0) {
-            newHead.y = (BOARD_HEIGHT - 1) * BLOCK_SIZE;
-        } else if (newHead.y >= BOARD_HEIGHT * BLOCK_SIZE) {
-            newHead.y = 0;
-        }
-
-        snake.add(0, newHead);
+    @Override
+    public void scoreChanged(int score) {
+        scorePanel.updateScore(score);
+    }
 
-        if (newHead.equals(food)) {
-            generateFoodOrPowerUp();
-            score += doublePointsActive ? 20 : 10;
-            scorePanel.updateScore(score);
-        } else if (powerUp != null && newHead.equals(powerUp.getPosition())) {
-            applyPowerUpEffect(powerUp);
-            powerUp = null;
-            generateFoodOrPowerUp();
-        } else {
-            snake.remove(snake.size() - 1);
-        }
+    @Override
+    public void itemSpawned() {
+        // the old and new item cells are repainted after the step
     }
 
-    // food and power-up generation
-    private void generateFoodOrPowerUp() {
-        int minX = 0;
-        int minY = 0;
-        int maxX = getWidth() - BLOCK_SIZE;
-        int maxY = getHeight() - BLOCK_SIZE;
+    @Override
+    public void powerUpActivated(PowerUpType type) {
+        effectsChanged();
+    }
 
-        int x = 0, y = 0;
-        int attempts = 0;
-        boolean positionFound = false;
+    @Override
+    public void powerUpDeactivated(PowerUpType type) {
+        effectsChanged();
+    }
 
-        while (attempts < 100) {
-            x = minX + (int) (Math.random() * ((maxX - minX + BLOCK_SIZE) / BLOCK_SIZE)) * BLOCK_SIZE;
-            y = minY + (int) (Math.random() * ((maxY - minY + BLOCK_SIZE) / BLOCK_SIZE)) * BLOCK_SIZE;
-            if (!snake.contains(new Point(x, y))) {
-                positionFound = true;
-                break;
+    // the board only follows the engine's combined effects, so new power-ups need nothing here
+    private void effectsChanged() {
+        int speedFactor = engine.getSpeedFactor();
+        int delay = difficultyDelay() / speedFactor;
+        if (timer.getDelay() != delay) {
+            timer.setDelay(delay);
+            metrics.setConfiguredInterval(delay);
+        }
+        // the snake flashes while the game runs faster
+        if (speedFactor > 1 && !colorChangeTask.isScheduled()) {
+            uiClock.schedule(colorChangeTask, ticksFor(COLOR_CHANGE_INTERVAL));
+        } else if (speedFactor == 1) {
+            uiClock.cancel(colorChangeTask);
+            if (!snakeColor.equals(configManager.getSnakeColor())) {
+                snakeColor = configManager.getSnakeColor(); // reset snake color to original
+                requestFullRepaint();
             }
-            attempts++;
         }
-
-        if (!positionFound) {
-            // if no position is found, game is over
-            isGameOver = true;
-            timer.stop();
-            scorePanel.checkHighScore(configManager.getHighScore());
-            return;
-        }
-        // Stop existing expiration timer (if running) before generating new food or power-up
-        if (expirationTimer != null && expirationTimer.isRunning()) {
-            expirationTimer.stop();
-        }
-
-        int powerUpChance = random.nextInt(100);
-        if (expirationTimer != null && expirationTimer.isRunning()) {
-            expirationTimer.stop();
-        }
-        if (powerUpChance < 10) { // 10% chance to generate a speed power-up
-            powerUp = new PowerUp(new Point(x, y), "speed");
-            food = null;
-        } else if (powerUpChance < 20) { // 20% chance to generate a double points power-up
-            powerUp = new PowerUp(new Point(x, y), "double_points");
-            food = null;
-        } else {
-            food = new Point(x, y);
-            powerUp = null;
-        }
-        // Reset the existing timer instead of creating a new one
-        startExpirationTimer();
-        repaint();
+        scorePanel.showEffects(engine);
     }
 
-    private void startExpirationTimer() {
-        if (expirationTimer == null) {
-            expirationTimer = new Timer(9000, new ActionListener() {
-                @Override
-                public void actionPerformed(ActionEvent e) {
-                    // Ensure we only remove the correct object (food or power-up)
-                    if (food != null) {
-                        food = null;
-                    }
-                    if (powerUp != null) {
-                        powerUp = null;
-                    }
-                    generateFoodOrPowerUp();
-                    repaint();
-                }
-            });
-            expirationTimer.setRepeats(false);
-        } else {
-            expirationTimer.stop();
-            expirationTimer.setInitialDelay(9000);
-            expirationTimer.restart();
-
+    @Override
+    public void gameOver(int score) {
+        if (leaderboard != null) {
+            leaderboard.record(score, engine.getSnake().length(), currentDifficulty, System.currentTimeMillis() - gameStartTime);
         }
-    }
-
-    private void applyPowerUpEffect(PowerUp powerUp) {
-        // reset the effect of any previously active power-up
-        if (activePowerUpType != null) {
-            resetPowerUpEffect(activePowerUpType);
+        if (replayStore != null) {
+            replayStore.save(recorder.finish(engine));
         }
-
-        // set the new active power-up type
-        activePowerUpType = powerUp.getType();
-
-        switch (powerUp.getType()) {
-            case "speed":
-                timer.setDelay(timer.getDelay() / 2);
-                startColorChangeTimer();
-                scorePanel.updatePowerUp("Speed");
-                break;
-            case "double_points":
-                doublePointsActive = true;
-                scorePanel.updatePowerUp("Double Points");
-                break;
+        scorePanel.checkHighScore(configManager.getHighScore());
+        if (score > configManager.getHighScore()) {
+            configManager.setHighScore(score);
+            configManager.saveProperties();
         }
+        uiClock.schedule(gameOverColorChangeTask, ticksFor(COLOR_CHANGE_INTERVAL));
+        requestFullRepaint();
+    }
 
-        // start a timer to reset the power-up effect after 7 seconds
-        powerUpTimer = new Timer(7000, new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                resetPowerUpEffect(activePowerUpType);
-                activePowerUpType = null; // Clear the active power-up
-                powerUpTimer.stop();
-            }
-        });
-        powerUpTimer.setRepeats(false);
-        powerUpTimer.start();
+    // snake color cycling while the speed power-up is active
+    private void changeSnakeColor() {
+        snakeColor = palette[random.nextInt(PALETTE_SIZE)];
+        uiClock.schedule(colorChangeTask, ticksFor(COLOR_CHANGE_INTERVAL));
+        requestFullRepaint();
     }
 
-    private void resetPowerUpEffect(String powerUpType) {
-        switch (powerUpType) {
-            case "speed":
-                setSpeedForDifficulty(); // restore speed to the current difficulty setting
-                if (colorChangeTimer != null) {
-                    colorChangeTimer.stop();
-                }
-                snakeColor = configManager.getSnakeColor(); // reset snake color to original
-                break;
-            case "double_points":
-                doublePointsActive = false;
-                break;
-        }
-        scorePanel.updatePowerUp("None");
+    // game over text color cycling
+    private void changeGameOverTextColor() {
+        gameOverTextColor = palette[random.nextInt(PALETTE_SIZE)];
+        uiClock.schedule(gameOverColorChangeTask, ticksFor(COLOR_CHANGE_INTERVAL));
+        requestFullRepaint();
     }
 
-    // timer for snake color changing
-    private void startColorChangeTimer() {
-        colorChangeTimer = new Timer(200, new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                snakeColor = new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256));
-                repaint();
+    // one tick of the game clock, the timer keeps running after game over to animate the text
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        long tickStart = 0;
+        if (metrics.isEnabled()) {
+            tickStart = System.nanoTime();
+            metrics.tickStarted(tickStart);
+        }
+        if (!engine.isGameOver()) {
+            SnakeBody snake = engine.getSnake();
+            int tailBefore = snake.tailCell();
+            Point foodBefore = engine.getFood();
+            PowerUp powerUpBefore = engine.getPowerUp();
+
+            // at most one buffered turn is applied per tick, recorded before the step can end the game
+            int appliedBefore = inputQueue.getApplied();
+            Direction turn = autopilotEnabled ? autopilot.decide(engine) : inputQueue.poll(engine.getDirection(), System.nanoTime());
+            if (tickStart != 0 && inputQueue.getApplied() != appliedBefore) {
+                metrics.recordInputLatency(inputQueue.getLastLatencyNanos());
             }
-        });
-        colorChangeTimer.start();
-    }
-
-    // collision checker
-    private void checkCollision() {
-        Point head = snake.get(0);
-
-        for (int i = 1; i < snake.size(); i++) {
-            if (head.equals(snake.get(i))) {
-                isGameOver = true;
-                powerUp = null;
-                timer.stop();
-                scorePanel.checkHighScore(configManager.getHighScore());
-                if (score > configManager.getHighScore()) {
-                    configManager.setHighScore(score);
-                    configManager.saveProperties();
-                }
-                startGameOverColorChangeTimer();
+            if (turn != null && turn != engine.getDirection()) {
+                recorder.record(engine.getTick() + 1, turn); // keeping the heading needs no event
+            }
+            engine.step(turn);
+            if (spectator != null) {
+                spectator.onTick(engine);
             }
-        }
-    }
 
-    // timer for game over text changing color
-    private void startGameOverColorChangeTimer() {
-        gameOverColorChangeTimer = new Timer(200, new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                gameOverTextColor = new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256));
-                repaint();
+            if (cameraMode) {
+                // the view scrolls with the head, so every visible cell changes
+                updateCamera();
+                requestFullRepaint();
             }
-        });
-        gameOverColorChangeTimer.start();
-    }
 
-    @Override
-    public void actionPerformed(ActionEvent e) {
-        if (!isGameOver) {
-            moveSnake();
-            checkCollision();
+            // head moved in, tail moved out, items may have spawned or expired
+            repaintCell(engine.cellX(tailBefore), engine.cellY(tailBefore));
+            repaintCell(engine.getHeadX(), engine.getHeadY());
+            repaintCell(foodBefore);
+            repaintCell(powerUpBefore);
+            repaintCell(engine.getFood());
+            repaintCell(engine.getPowerUp());
+        }
+        uiClock.advance();
+        if (showMetrics && System.nanoTime() - overlayRefreshedAt >= OVERLAY_REFRESH_NANOS) {
+            overlayLines = metrics.overlayLines();
+            overlayRefreshedAt = System.nanoTime();
+            repaint(overlayBounds.x, overlayBounds.y, overlayBounds.width, Math.max(overlayBounds.height, 120));
+        }
+        if (fullRepaintNeeded) {
+            fullRepaintNeeded = false;
             repaint();
         }
+        if (tickStart != 0) {
+            metrics.recordTick(System.nanoTime() - tickStart);
+        }
+    }
+
+    // config.properties was edited outside the game
+    private void configReloaded(GameConfig config) {
+        if (engine.getSpeedFactor() == 1) {
+            snakeColor = config.getSnakeColor();
+        }
+        scorePanel.checkHighScore(config.getHighScore());
+        repaint();
     }
 
     // method for snake color and saving to config
@@ -492,37 +684,53 @@ public class GameBoard extends JPanel implements ActionListener, KeyListener {
     public void keyTyped(KeyEvent e) {
     }
 
-    @Override
-    public void keyPressed(KeyEvent e) {
-        long currentTime = System.currentTimeMillis();
-        if (currentTime - lastKeyPressTime < KEY_PRESS_DELAY) {
-            return; // Ignore key press if within delay period
+    // a full queue drops the turn, the metrics count how often that happens
+    private void queueTurn(Direction direction) {
+        if (!inputQueue.offer(direction, System.nanoTime()) && metrics.isEnabled()) {
+            metrics.recordDroppedTurn();
         }
-        lastKeyPressTime = currentTime;
+    }
 
+    @Override
+    public void keyPressed(KeyEvent e) {
         int key = e.getKeyCode();
-        if (key == KeyEvent.VK_UP && direction != KeyEvent.VK_DOWN) {
-            direction = KeyEvent.VK_UP;
-        } else if (key == KeyEvent.VK_DOWN && direction != KeyEvent.VK_UP) {
-            direction = KeyEvent.VK_DOWN;
-        } else if (key == KeyEvent.VK_LEFT && direction != KeyEvent.VK_RIGHT) {
-            direction = KeyEvent.VK_LEFT;
-        } else if (key == KeyEvent.VK_RIGHT && direction != KeyEvent.VK_LEFT) {
-            direction = KeyEvent.VK_RIGHT;
-        } else if (key == KeyEvent.VK_W && direction != KeyEvent.VK_DOWN) {
-            direction = KeyEvent.VK_UP;
-        } else if (key == KeyEvent.VK_S && direction != KeyEvent.VK_UP) {
-            direction = KeyEvent.VK_DOWN;
-        } else if (key == KeyEvent.VK_A && direction != KeyEvent.VK_RIGHT) {
-            direction = KeyEvent.VK_LEFT;
-        } else if (key == KeyEvent.VK_D && direction != KeyEvent.VK_LEFT) {
-            direction = KeyEvent.VK_RIGHT;
-        } else if (key == KeyEvent.VK_SPACE && isGameOver) {
+        if (key == KeyEvent.VK_UP || key == KeyEvent.VK_W) {
+            queueTurn(Direction.UP);
+        } else if (key == KeyEvent.VK_DOWN || key == KeyEvent.VK_S) {
+            queueTurn(Direction.DOWN);
+        } else if (key == KeyEvent.VK_LEFT || key == KeyEvent.VK_A) {
+            queueTurn(Direction.LEFT);
+        } else if (key == KeyEvent.VK_RIGHT || key == KeyEvent.VK_D) {
+            queueTurn(Direction.RIGHT);
+        } else if (key == KeyEvent.VK_SPACE && engine.isGameOver()) {
             resetGame();
+        } else if (key == KeyEvent.VK_B) {
+            if (autopilot == null && (long) BOARD_WIDTH * BOARD_HEIGHT > OccupancyGrid.DENSE_LIMIT) {
+                return; // its search arrays would be as large as the board, B does nothing here
+            }
+            if (autopilot == null) {
+                autopilot = new Autopilot(BOARD_WIDTH, BOARD_HEIGHT);
+            }
+            autopilotEnabled = !autopilotEnabled;
+            inputQueue.clear();
+            scorePanel.setAutopilot(autopilotEnabled);
+        } else if (key == KeyEvent.VK_M) {
+            showMetrics = !showMetrics;
+            metrics.setEnabled(showMetrics || METRICS);
+            overlayRefreshedAt = 0;
+            requestFullRepaint();
+        } else if (key == KeyEvent.VK_P && !engine.isGameOver()) {
+            setPaused(!paused);
         } else if (key == KeyEvent.VK_ESCAPE) {
             SwingUtilities.invokeLater(() -> {
-                settingsDialog.setSelectedDifficulty(currentDifficulty);
-                settingsDialog.setVisible(true);
+                boolean wasPaused = paused;
+                setPaused(true); // the game waits while the settings are open
+                SettingsDialog dialog = getSettingsDialog();
+                dialog.setSelectedDifficulty(currentDifficulty);
+                dialog.setVisible(true);
+                if (!wasPaused) {
+                    setPaused(false);
+                }
             });
         }
     }
@@ -530,4 +738,4 @@ public class GameBoard extends JPanel implements ActionListener, KeyListener {
     @Override
     public void keyReleased(KeyEvent e) {
     }
-}
\ No newline at end of file
+}
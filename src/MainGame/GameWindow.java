@@ -4,19 +4,44 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import javax.imageio.ImageIO;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import GameDependencies.Leaderboard;
+import GameDependencies.LevelStore;
+import GameDependencies.ReplayStore;
+import GameEngine.Level;
+import GameEngine.ReplayPlayer;
+import GameEngine.SnakeEngine;
+import GameNetwork.GameClient;
+import GameNetwork.GameServer;
+import GameNetwork.Protocol;
 
 public class GameWindow {
     private JFrame window;
     private GameBoard gameBoard;
+    private static final boolean ACTIVE_RENDERING = Boolean.getBoolean("snake.activeRendering");
+    private ActiveGameCanvas activeCanvas; // used instead of gameBoard with -Dsnake.activeRendering=true
     private MenuPanel menuPanel;
+    private ReplayViewer replayViewer;
+    private MultiplayerPanel multiplayerPanel;
+    private GameServer localServer; // started the first time this window hosts a match
+    private boolean connecting = false; // a join is in flight, EDT only
     private SettingsDialog settingsDialog;
+    private Leaderboard leaderboard = new Leaderboard();
+    private ReplayStore replayStore = new ReplayStore();
+    private LevelStore levelStore = new LevelStore();
+    private List<Path> levelFiles = levelStore.list();
 
     public GameWindow() {
         window = new JFrame("Snake Game");
         window.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        window.addWindowListener(new CloseListener());
         window.setSize(800, 600);
         window.setLayout(new BorderLayout()); // BorderLayout
 
@@ -32,7 +57,11 @@ public class GameWindow {
             e.printStackTrace();
         }
 
-        menuPanel = new MenuPanel(new StartButtonListener());
+        String[] levelNames = new String[levelFiles.size()];
+        for (int i = 0; i < levelNames.length; i++) {
+            levelNames[i] = LevelStore.displayName(levelFiles.get(i));
+        }
+        menuPanel = new MenuPanel(new StartButtonListener(), new MultiplayerButtonListener(), new LeaderboardButtonListener(), new ReplaysButtonListener(), levelNames);
         window.add(menuPanel, BorderLayout.CENTER);
 
         window.pack();
@@ -41,20 +70,66 @@ public class GameWindow {
         window.setVisible(true);
     }
 
+    // runs before EXIT_ON_CLOSE ends the JVM, so open streams get flushed and closed
+    private class CloseListener extends WindowAdapter {
+        @Override
+        public void windowClosing(WindowEvent e) {
+            disposeBoards();
+            if (localServer != null) {
+                localServer.stop();
+            }
+            leaderboard.close();
+            replayStore.close();
+        }
+    }
+
+    private void disposeBoards() {
+        if (gameBoard != null) {
+            gameBoard.dispose();
+            gameBoard = null;
+        }
+        if (activeCanvas != null) {
+            activeCanvas.dispose();
+            activeCanvas = null;
+        }
+    }
+
     private class StartButtonListener implements ActionListener {
         @Override
         public void actionPerformed(ActionEvent e) {
+            Level level = null;
+            int levelIndex = menuPanel.getSelectedLevel();
+            if (levelIndex >= 0) {
+                try {
+                    level = levelStore.load(levelFiles.get(levelIndex));
+                } catch (IOException ex) {
+                    JOptionPane.showMessageDialog(window, "Could not load level: " + ex.getMessage(), "Levels", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+            }
             window.remove(menuPanel); // remove the menu panel when the game starts
+            disposeBoards();
 
             ScorePanel scorePanel = new ScorePanel();
             if (settingsDialog == null) {
                 settingsDialog = new SettingsDialog(window, new RestartButtonListener(), new DifficultyButtonListener(), new ColorChangeListener());
             }
-            gameBoard = new GameBoard(scorePanel, settingsDialog);
+            Component board;
+            if (ACTIVE_RENDERING) {
+                activeCanvas = new ActiveGameCanvas(scorePanel, settingsDialog, level);
+                activeCanvas.setLeaderboard(leaderboard);
+                activeCanvas.setReplayStore(replayStore);
+                board = activeCanvas;
+            } else {
+                gameBoard = new GameBoard(scorePanel, settingsDialog, level);
+                gameBoard.setLeaderboard(leaderboard);
+                gameBoard.setReplayStore(replayStore);
+                board = gameBoard;
+            }
 
             // add the game board and score panel to the window
             window.add(scorePanel, BorderLayout.NORTH); // add score panel to north
-            window.add(gameBoard, BorderLayout.CENTER); // add game board to center
+            window.add(board, BorderLayout.CENTER); // add game board to center
 
             window.pack();
 
@@ -62,8 +137,8 @@ public class GameWindow {
             Insets insets = window.getInsets();
 
             // adjust the window size to account for insets
-            int totalWidth = gameBoard.getPreferredSize().width + insets.left + insets.right;
-            int totalHeight = gameBoard.getPreferredSize().height + insets.top + insets.bottom;
+            int totalWidth = board.getPreferredSize().width + insets.left + insets.right;
+            int totalHeight = board.getPreferredSize().height + insets.top + insets.bottom;
 
             // set the window size to include the game board and insets
             window.setSize(totalWidth, totalHeight);
@@ -73,7 +148,147 @@ public class GameWindow {
             window.repaint();    // repaint the components
             window.setResizable(false); // disable resizing
 
-            gameBoard.requestFocusInWindow(); // ensure the game board has focus for key inputs
+            board.requestFocusInWindow(); // ensure the game board has focus for key inputs
+        }
+    }
+
+    private class LeaderboardButtonListener implements ActionListener {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            new LeaderboardDialog(window, leaderboard).setVisible(true);
+        }
+    }
+
+    // host a match on this machine or join one, then swap the menu for the shared board
+    // connecting can take as long as the socket timeout, so it happens off the EDT
+    private class MultiplayerButtonListener implements ActionListener {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            if (connecting) {
+                return;
+            }
+            String[] options = {"Host", "Join", "Cancel"};
+            int choice = JOptionPane.showOptionDialog(window, "Host a match on this computer or join one?", "Multiplayer",
+                    JOptionPane.DEFAULT_OPTION, JOptionPane.PLAIN_MESSAGE, null, options, options[0]);
+            String host = "localhost";
+            int port = Protocol.DEFAULT_PORT;
+            try {
+                if (choice == 0) {
+                    if (localServer == null) {
+                        localServer = new GameServer(port, SnakeEngine.DEFAULT_WIDTH, SnakeEngine.DEFAULT_HEIGHT, GameServer.DEFAULT_TICK_MILLIS);
+                        localServer.start();
+                    }
+                } else if (choice == 1) {
+                    String address = JOptionPane.showInputDialog(window, "Server address", "localhost:" + Protocol.DEFAULT_PORT);
+                    if (address == null || address.isBlank()) {
+                        return;
+                    }
+                    int colon = address.lastIndexOf(':');
+                    host = colon >= 0 ? address.substring(0, colon).trim() : address.trim();
+                    port = colon >= 0 ? Integer.parseInt(address.substring(colon + 1).trim()) : Protocol.DEFAULT_PORT;
+                } else {
+                    return;
+                }
+            } catch (IOException | NumberFormatException ex) {
+                connectFailed(ex);
+                return;
+            }
+            connecting = true;
+            String finalHost = host;
+            int finalPort = port;
+            Thread connector = new Thread(() -> {
+                try {
+                    GameClient client = new GameClient(finalHost, finalPort, () -> {
+                        if (multiplayerPanel != null) {
+                            multiplayerPanel.repaint();
+                        }
+                    });
+                    SwingUtilities.invokeLater(() -> showMultiplayer(client));
+                } catch (IOException ex) {
+                    SwingUtilities.invokeLater(() -> connectFailed(ex));
+                }
+            }, "Game connect");
+            connector.setDaemon(true);
+            connector.start();
+        }
+
+        private void showMultiplayer(GameClient client) {
+            connecting = false;
+            window.remove(menuPanel);
+            multiplayerPanel = new MultiplayerPanel(client, Color.GREEN, new MultiplayerBackListener());
+            window.add(multiplayerPanel, BorderLayout.CENTER);
+            window.pack();
+            window.setLocationRelativeTo(null);
+            window.revalidate();
+            window.repaint();
+            multiplayerPanel.requestFocusInWindow();
+        }
+
+        private void connectFailed(Exception ex) {
+            connecting = false;
+            JOptionPane.showMessageDialog(window, "Could not connect: " + ex.getMessage(), "Multiplayer", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private class MultiplayerBackListener implements ActionListener {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            window.remove(multiplayerPanel);
+            multiplayerPanel = null;
+            window.add(menuPanel, BorderLayout.CENTER);
+            window.pack();
+            window.setLocationRelativeTo(null);
+            window.revalidate();
+            window.repaint();
+        }
+    }
+
+    // pick a saved game and swap the menu for the replay viewer
+    private class ReplaysButtonListener implements ActionListener {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            List<Path> files = replayStore.list();
+            if (files.isEmpty()) {
+                JOptionPane.showMessageDialog(window, "No replays recorded yet.", "Replays", JOptionPane.INFORMATION_MESSAGE);
+                return;
+            }
+            String[] names = new String[files.size()];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = files.get(i).getFileName().toString();
+            }
+            Object choice = JOptionPane.showInputDialog(window, "Choose a replay", "Replays",
+                    JOptionPane.PLAIN_MESSAGE, null, names, names[0]);
+            if (choice == null) {
+                return;
+            }
+            ReplayPlayer player;
+            try {
+                player = new ReplayPlayer(replayStore.load(files.get(Arrays.asList(names).indexOf(choice))));
+            } catch (IOException ex) {
+                JOptionPane.showMessageDialog(window, "Could not load replay: " + ex.getMessage(), "Replays", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+
+            window.remove(menuPanel);
+            replayViewer = new ReplayViewer(player, new ReplayBackListener());
+            window.add(replayViewer, BorderLayout.CENTER);
+            window.pack();
+            window.setLocationRelativeTo(null);
+            window.revalidate();
+            window.repaint();
+        }
+    }
+
+    private class ReplayBackListener implements ActionListener {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            window.remove(replayViewer);
+            replayViewer = null;
+            window.add(menuPanel, BorderLayout.CENTER);
+            window.pack();
+            window.setLocationRelativeTo(null);
+            window.revalidate();
+            window.repaint();
         }
     }
 
@@ -93,6 +308,9 @@ public class GameWindow {
             if (gameBoard != null) {
                 gameBoard.resetGame();
                 gameBoard.requestFocusInWindow();
+            } else if (activeCanvas != null) {
+                activeCanvas.resetGame();
+                activeCanvas.requestFocusInWindow();
             }
         }
     }
@@ -101,16 +319,13 @@ public class GameWindow {
         @Override
         public void actionPerformed(ActionEvent e) {
             if (gameBoard != null) {
-                String difficulty = settingsDialog.getSelectedDifficulty();
-                if ("Easy".equals(difficulty)) {
-                    gameBoard.setTimerDelay(80);
-                } else if ("Medium".equals(difficulty)) {
-                    gameBoard.setTimerDelay(50);
-                } else if ("Hard".equals(difficulty)) {
-                    gameBoard.setTimerDelay(30);
-                }
+                gameBoard.setDifficulty(settingsDialog.getSelectedDifficulty(), GameBoard.delayFor(settingsDialog.getSelectedDifficulty()));
                 gameBoard.resetGame();
                 gameBoard.requestFocusInWindow();
+            } else if (activeCanvas != null) {
+                activeCanvas.setDifficulty(settingsDialog.getSelectedDifficulty(), GameBoard.delayFor(settingsDialog.getSelectedDifficulty()));
+                activeCanvas.resetGame();
+                activeCanvas.requestFocusInWindow();
             }
         }
     }
@@ -121,6 +336,8 @@ public class GameWindow {
             if (gameBoard != null) {
                 gameBoard.setSnakeColor(settingsDialog.getSelectedColor());
                 gameBoard.repaint();
+            } else if (activeCanvas != null) {
+                activeCanvas.setSnakeColor(settingsDialog.getSelectedColor());
             }
         }
     }
@@ -0,0 +1,69 @@
+package MainGame;
+
+import GameDependencies.*;
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
+public class LeaderboardDialog extends JDialog {
+
+    public LeaderboardDialog(JFrame parent, Leaderboard leaderboard) {
+        super(parent, "Leaderboard", true);
+        setLayout(new BorderLayout());
+        getContentPane().setBackground(Color.BLACK);
+
+        JLabel titleLabel = new JLabel("Top " + Leaderboard.TOP_SIZE + " of " + leaderboard.getGamesPlayed() + " games", JLabel.CENTER);
+        titleLabel.setFont(new Font("Comic Sans MS", Font.BOLD, 14));
+        titleLabel.setForeground(Color.WHITE);
+        titleLabel.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+        add(titleLabel, BorderLayout.NORTH);
+
+        // one tab per difficulty
+        JTabbedPane tabs = new JTabbedPane();
+        for (String difficulty : Leaderboard.DIFFICULTIES) {
+            tabs.addTab(difficulty, new JScrollPane(createTable(leaderboard.getTop(difficulty))));
+        }
+        add(tabs, BorderLayout.CENTER);
+
+        JButton closeButton = new JButton("Close");
+        closeButton.setBackground(Color.BLACK);
+        closeButton.setForeground(Color.WHITE);
+        closeButton.addActionListener(e -> dispose());
+        JPanel buttonPanel = new JPanel(new FlowLayout());
+        buttonPanel.setBackground(Color.BLACK);
+        buttonPanel.add(closeButton);
+        add(buttonPanel, BorderLayout.SOUTH);
+
+        setSize(480, 320);
+        setLocationRelativeTo(parent);
+    }
+
+    private JTable createTable(List<LeaderboardEntry> entries) {
+        DefaultTableModel model = new DefaultTableModel(new Object[]{"#", "Score", "Length", "Time", "Date"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+        int rank = 1;
+        for (LeaderboardEntry entry : entries) {
+            long seconds = entry.getDurationMillis() / 1000;
+            model.addRow(new Object[]{
+                    rank++,
+                    entry.getScore(),
+                    entry.getLength(),
+                    String.format("%d:%02d", seconds / 60, seconds % 60),
+                    dateFormat.format(new Date(entry.getTimestamp()))
+            });
+        }
+        JTable table = new JTable(model);
+        table.setBackground(new Color(45, 45, 45));
+        table.setForeground(Color.WHITE);
+        table.setFillsViewportHeight(true);
+        return table;
+    }
+}
@@ -11,9 +11,13 @@ import java.util.Objects;
 
 public class MenuPanel extends JPanel {
     private JButton startButton;
+    private JComboBox<String> levelPicker;
+    private JButton leaderboardButton;
+    private JButton replaysButton;
+    private JButton multiplayerButton;
     private JButton quitButton;
 
-    public MenuPanel(ActionListener startListener) {
+    public MenuPanel(ActionListener startListener, ActionListener multiplayerListener, ActionListener leaderboardListener, ActionListener replaysListener, String[] levelNames) {
         setLayout(new GridBagLayout());
         GridBagConstraints gbc = new GridBagConstraints();
         gbc.insets = new Insets(10, 10, 10, 10);
@@ -59,16 +63,49 @@ public class MenuPanel extends JPanel {
         gbc.gridy = 3; // Move start button to row 3
         add(startButton, gbc);
 
+        // level picker, the open board first and then every file in the levels directory
+        levelPicker = new JComboBox<>();
+        levelPicker.addItem("Open board");
+        for (String name : levelNames) {
+            levelPicker.addItem(name);
+        }
+        levelPicker.setEnabled(levelNames.length > 0);
+        gbc.gridy = 4; // Move level picker to row 4
+        add(levelPicker, gbc);
+
+        // multiplayer button
+        multiplayerButton = new JButton("Multiplayer");
+        multiplayerButton.addActionListener(multiplayerListener);
+        gbc.gridy = 5; // Move multiplayer button to row 5
+        add(multiplayerButton, gbc);
+
+        // leaderboard button
+        leaderboardButton = new JButton("Leaderboard");
+        leaderboardButton.addActionListener(leaderboardListener);
+        gbc.gridy = 6; // Move leaderboard button to row 6
+        add(leaderboardButton, gbc);
+
+        // replays button
+        replaysButton = new JButton("Replays");
+        replaysButton.addActionListener(replaysListener);
+        gbc.gridy = 7; // Move replays button to row 7
+        add(replaysButton, gbc);
+
         // settings button
         quitButton = new JButton("Quit");
         quitButton.addActionListener(e -> System.exit(0));
-        gbc.gridy = 4; // Move quit button to row 4
+        gbc.gridy = 8; // Move quit button to row 8
         add(quitButton, gbc);
 
         // invert colors
         invertColors();
     }
 
+    // index into the level names the menu was built with, -1 for the open board
+    public int getSelectedLevel() {
+        return levelPicker.getSelectedIndex() - 1;
+    }
+
     // method for color inversion
     private void invertColors() {
         setBackground(invertColor(getBackground()));
@@ -0,0 +1,106 @@
+package MainGame;
+import GameEngine.*;
+import GameNetwork.*;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.KeyEvent;
+import java.awt.event.KeyListener;
+
+// shared board of a multiplayer match, drawn from the client's mirror of the server state
+public class MultiplayerPanel extends JPanel implements KeyListener {
+
+    private final int BLOCK_SIZE = 10;
+    private static final int PLAYER_COLORS = 32;
+    private static final Font STATUS_FONT = new Font("Helvetica", Font.PLAIN, 14);
+
+    private final GameClient client;
+    private final ActionListener backListener;
+    private final Color snakeColor;
+    private final Color[] playerColors = new Color[PLAYER_COLORS];
+    private Image gridImage;
+
+    public MultiplayerPanel(GameClient client, Color snakeColor, ActionListener backListener) {
+        this.client = client;
+        this.snakeColor = snakeColor;
+        this.backListener = backListener;
+        ClientBoard board = client.getBoard();
+        setPreferredSize(new Dimension(board.getWidth() * BLOCK_SIZE, board.getHeight() * BLOCK_SIZE));
+        setBackground(GameBoard.BACKGROUND_COLOR);
+        for (int i = 0; i < PLAYER_COLORS; i++) {
+            playerColors[i] = Color.getHSBColor((i * 0.618f) % 1f, 0.6f, 0.9f); // spread the hues apart
+        }
+        setFocusable(true);
+        addKeyListener(this);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        if (gridImage == null || gridImage.getWidth(null) != getWidth() || gridImage.getHeight(null) != getHeight()) {
+            gridImage = GameBoard.createGridImage(getGraphicsConfiguration(), getWidth(), getHeight(), getBackground(), BLOCK_SIZE);
+        }
+        g.drawImage(gridImage, 0, 0, null);
+
+        ClientBoard board = client.getBoard();
+        int height = board.getHeight();
+        int players = 0;
+        int myScore = 0;
+        synchronized (board) {
+            for (int slot = 0; slot < board.getSlotCount(); slot++) {
+                if (!board.isPresent(slot)) {
+                    continue;
+                }
+                players++;
+                if (slot == board.getPlayer()) {
+                    myScore = board.getScore(slot);
+                    g.setColor(snakeColor);
+                } else {
+                    g.setColor(playerColors[slot % PLAYER_COLORS]);
+                }
+                SnakeBody body = board.getBody(slot);
+                for (int i = 0; i < body.length(); i++) {
+                    int cell = body.get(i);
+                    g.fillRect(cell / height * BLOCK_SIZE, cell % height * BLOCK_SIZE, BLOCK_SIZE, BLOCK_SIZE);
+                }
+            }
+            int food = board.getFoodCell();
+            if (food >= 0) {
+                g.setColor(Color.RED);
+                g.fillRect(food / height * BLOCK_SIZE, food % height * BLOCK_SIZE, BLOCK_SIZE, BLOCK_SIZE);
+            }
+        }
+
+        g.setColor(Color.WHITE);
+        g.setFont(STATUS_FONT);
+        String status = client.isConnected()
+                ? (board.getPlayer() >= 0 ? "Score: " + myScore : "Spectating") + "   Players: " + players
+                : "Disconnected, press ESC";
+        g.drawString(status, 8, 18);
+    }
+
+    @Override
+    public void keyPressed(KeyEvent e) {
+        int key = e.getKeyCode();
+        if (key == KeyEvent.VK_UP || key == KeyEvent.VK_W) {
+            client.sendTurn(Direction.UP);
+        } else if (key == KeyEvent.VK_DOWN || key == KeyEvent.VK_S) {
+            client.sendTurn(Direction.DOWN);
+        } else if (key == KeyEvent.VK_LEFT || key == KeyEvent.VK_A) {
+            client.sendTurn(Direction.LEFT);
+        } else if (key == KeyEvent.VK_RIGHT || key == KeyEvent.VK_D) {
+            client.sendTurn(Direction.RIGHT);
+        } else if (key == KeyEvent.VK_ESCAPE) {
+            client.close();
+            backListener.actionPerformed(new ActionEvent(this, ActionEvent.ACTION_PERFORMED, "back"));
+        }
+    }
+
+    @Override
+    public void keyReleased(KeyEvent e) {
+    }
+
+    @Override
+    public void keyTyped(KeyEvent e) {
+    }
+}
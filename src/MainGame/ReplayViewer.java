@@ -0,0 +1,180 @@
+package MainGame;
+import GameEngine.*;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+
+// plays back a recorded game; the simulation runs headless and only the frames shown get painted
+public class ReplayViewer extends JPanel implements ActionListener {
+
+    private final int BLOCK_SIZE = 10;
+    private static final int FRAME_MILLIS = 16; // one repaint per frame however many ticks it covers
+    private static final long MAX_SPEED_BUDGET_NANOS = 8_000_000; // simulation time per frame at max speed
+    private static final String[] SPEEDS = {"1x", "2x", "4x", "16x", "Max"};
+    private static final int[] SPEED_FACTORS = {1, 2, 4, 16, 0};
+
+    private final ReplayPlayer player;
+    private final Timer timer;
+    private final BoardView boardView = new BoardView();
+    private final JButton playButton = new JButton("Pause");
+    private final JComboBox<String> speedBox = new JComboBox<>(SPEEDS);
+    private final JSlider seekSlider;
+    private final JLabel tickLabel = new JLabel();
+    private boolean playing = true;
+    private boolean updatingSlider = false;
+    private double tickDebt = 0; // fraction of a tick carried over to the next frame
+    private Color snakeColor = Color.GREEN;
+
+    public ReplayViewer(ReplayPlayer player, ActionListener backListener) {
+        this.player = player;
+        Replay replay = player.getReplay();
+        this.timer = new Timer(FRAME_MILLIS, this);
+        setLayout(new BorderLayout());
+
+        // huge boards are shown through a view that follows the head, like the live game
+        boardView.setPreferredSize(new Dimension(Math.min(replay.getWidth(), SnakeEngine.DEFAULT_WIDTH) * BLOCK_SIZE,
+                Math.min(replay.getHeight(), SnakeEngine.DEFAULT_HEIGHT) * BLOCK_SIZE));
+        boardView.setBackground(GameBoard.BACKGROUND_COLOR);
+        add(boardView, BorderLayout.CENTER);
+
+        seekSlider = new JSlider(0, (int) Math.min(Integer.MAX_VALUE, replay.getTotalTicks()), 0);
+        seekSlider.addChangeListener(e -> {
+            if (!updatingSlider) {
+                player.seek(seekSlider.getValue());
+                tickDebt = 0;
+                updateControls();
+                boardView.repaint();
+            }
+        });
+
+        playButton.addActionListener(e -> setPlaying(!playing));
+        JButton restartButton = new JButton("Restart");
+        restartButton.addActionListener(e -> {
+            player.restart();
+            setPlaying(true);
+            updateControls();
+            boardView.repaint();
+        });
+        JButton menuButton = new JButton("Menu");
+        menuButton.addActionListener(e -> {
+            timer.stop();
+            backListener.actionPerformed(e);
+        });
+
+        JPanel controls = new JPanel(new BorderLayout(5, 0));
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        buttons.add(playButton);
+        buttons.add(restartButton);
+        buttons.add(speedBox);
+        buttons.add(tickLabel);
+        controls.add(buttons, BorderLayout.WEST);
+        controls.add(seekSlider, BorderLayout.CENTER);
+        controls.add(menuButton, BorderLayout.EAST);
+        add(controls, BorderLayout.SOUTH);
+
+        timer.start();
+        updateControls();
+    }
+
+    public void setSnakeColor(Color color) {
+        this.snakeColor = color;
+    }
+
+    private void setPlaying(boolean playing) {
+        this.playing = playing;
+        tickDebt = 0;
+        playButton.setText(playing ? "Pause" : "Play");
+    }
+
+    // one frame: simulate every tick that is due at the chosen speed, then paint once
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        if (!playing || player.isFinished()) {
+            return;
+        }
+        int factor = SPEED_FACTORS[speedBox.getSelectedIndex()];
+        if (factor == 0) {
+            long deadline = System.nanoTime() + MAX_SPEED_BUDGET_NANOS;
+            while (System.nanoTime() < deadline && player.fastForward(64) == 64) {
+                // keep going until the frame budget is used up
+            }
+        } else {
+            tickDebt += (double) FRAME_MILLIS * factor / Math.max(1, player.getReplay().getTickMillis());
+            int ticks = (int) tickDebt;
+            tickDebt -= ticks;
+            player.fastForward(ticks);
+        }
+        if (player.isFinished()) {
+            setPlaying(false);
+        }
+        updateControls();
+        boardView.repaint();
+    }
+
+    private void updateControls() {
+        updatingSlider = true;
+        seekSlider.setValue((int) Math.min(Integer.MAX_VALUE, player.getTick()));
+        updatingSlider = false;
+        SnakeEngine engine = player.getEngine();
+        tickLabel.setText("Tick " + player.getTick() + " / " + player.getReplay().getTotalTicks() + "  Score " + engine.getScore());
+    }
+
+    private class BoardView extends JPanel {
+        private Image gridImage;
+        private int cameraX, cameraY;
+        private int viewColumns, viewRows;
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            if (gridImage == null || gridImage.getWidth(null) != getWidth() || gridImage.getHeight(null) != getHeight()) {
+                gridImage = GameBoard.createGridImage(getGraphicsConfiguration(), getWidth(), getHeight(), getBackground(), BLOCK_SIZE);
+            }
+            g.drawImage(gridImage, 0, 0, null);
+
+            SnakeEngine engine = player.getEngine();
+            viewColumns = Math.min(engine.getWidth(), SnakeEngine.DEFAULT_WIDTH);
+            viewRows = Math.min(engine.getHeight(), SnakeEngine.DEFAULT_HEIGHT);
+            cameraX = viewColumns < engine.getWidth() ? Math.floorMod(engine.getHeadX() - viewColumns / 2, engine.getWidth()) : 0;
+            cameraY = viewRows < engine.getHeight() ? Math.floorMod(engine.getHeadY() - viewRows / 2, engine.getHeight()) : 0;
+            if (engine.getLevel() != null) {
+                GameBoard.paintLevel(g, engine.getLevel(), cameraX, cameraY, viewColumns, viewRows, BLOCK_SIZE);
+            }
+
+            g.setColor(snakeColor);
+            SnakeBody snake = engine.getSnake();
+            for (int i = 0; i < snake.length(); i++) {
+                int cell = snake.get(i);
+                fillCell(g, engine, engine.cellX(cell), engine.cellY(cell));
+            }
+
+            Point food = engine.getFood();
+            if (food != null) {
+                g.setColor(Color.RED);
+                fillCell(g, engine, food.x, food.y);
+            }
+
+            PowerUp powerUp = engine.getPowerUp();
+            if (powerUp != null) {
+                g.setColor(Color.BLUE);
+                fillCell(g, engine, powerUp.getPosition().x, powerUp.getPosition().y);
+            }
+
+            if (engine.isGameOver()) {
+                g.setColor(Color.WHITE);
+                g.setFont(GameBoard.GAME_OVER_FONT);
+                FontMetrics fm = g.getFontMetrics();
+                g.drawString(GameBoard.GAME_OVER_TEXT, (getWidth() - fm.stringWidth(GameBoard.GAME_OVER_TEXT)) / 2, getHeight() / 2);
+            }
+        }
+
+        // board cell to screen through the camera, cells outside the view are skipped
+        private void fillCell(Graphics g, SnakeEngine engine, int x, int y) {
+            int sx = Math.floorMod(x - cameraX, engine.getWidth());
+            int sy = Math.floorMod(y - cameraY, engine.getHeight());
+            if (sx < viewColumns && sy < viewRows) {
+                g.fillRect(sx * BLOCK_SIZE, sy * BLOCK_SIZE, BLOCK_SIZE, BLOCK_SIZE);
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package MainGame;
 
+import GameEngine.PowerUpType;
+import GameEngine.SnakeEngine;
 import java.awt.Font;
 import javax.swing.JPanel;
 import javax.swing.JLabel;
@@ -12,6 +14,7 @@ public class ScorePanel extends JPanel {
     private JLabel powerUpLabel;
     private int score = 0;
     private int highScore = 0;
+    private boolean autopilot = false;
 
     public ScorePanel() {
         setLayout(new GridLayout(1, 3)); // 1 row, 3 columns grid to ensure even spacing
@@ -30,7 +33,13 @@ public class ScorePanel extends JPanel {
 
     public void updateScore(int newScore) {
         this.score = newScore;
-        scoreLabel.setText("Score: " + score);
+        scoreLabel.setText(autopilot ? "Score: " + score + " (Autopilot)" : "Score: " + score);
+    }
+
+    // marks the score while the computer is playing
+    public void setAutopilot(boolean autopilot) {
+        this.autopilot = autopilot;
+        updateScore(score);
     }
 
     public void checkHighScore(int configHighScore) {
@@ -47,6 +56,31 @@ public class ScorePanel extends JPanel {
         powerUpLabel.setText("Power-Up: " + powerUp);
     }
 
+    public void showEffects(SnakeEngine engine) {
+        updatePowerUp(describeEffects(engine));
+    }
+
+    // every active effect with its stack count, e.g. "Speed + Double Points x2"
+    static String describeEffects(SnakeEngine engine) {
+        if (engine.getActiveEffects() == 0) {
+            return "None";
+        }
+        StringBuilder text = new StringBuilder();
+        for (PowerUpType type : PowerUpType.values()) {
+            int stacks = engine.getEffectStacks(type);
+            if (stacks > 0) {
+                if (text.length() > 0) {
+                    text.append(" + ");
+                }
+                text.append(type.getDisplayName());
+                if (stacks > 1) {
+                    text.append(" x").append(stacks);
+                }
+            }
+        }
+        return text.toString();
+    }
+
     public int getScore() {
         return score;
     }
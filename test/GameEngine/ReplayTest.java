@@ -0,0 +1,168 @@
+package GameEngine;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// a recording plus its seed has to play back into exactly the game that was played, from the start or from any snapshot
+class ReplayTest {
+    private static final int GAMES = 40;
+    private static final long MAX_TICKS = 5000;
+
+    // a game with random turns, with one turn every so often so the tick deltas need one to three varint bytes
+    private static Replay play(SnakeEngine engine, long inputSeed) {
+        GameRandom input = new GameRandom(inputSeed);
+        ReplayRecorder recorder = new ReplayRecorder();
+        recorder.start(engine, 50);
+        while (!engine.isGameOver() && engine.getTick() < MAX_TICKS) {
+            Direction turn = input.nextInt(5) == 0 ? Direction.values()[input.nextInt(4)] : null;
+            if (turn != null) {
+                recorder.record(engine.getTick() + 1, turn);
+            }
+            engine.step(turn);
+        }
+        return recorder.finish(engine);
+    }
+
+    private static SnakeEngine newEngine(long seed) {
+        SnakeEngine engine = new SnakeEngine(30, 20, seed);
+        engine.setTimings(40, 30);
+        engine.reset(seed);
+        return engine;
+    }
+
+    // everything a spawn or a collision could depend on
+    private static String state(SnakeEngine engine) {
+        StringBuilder state = new StringBuilder();
+        state.append(engine.getTick()).append(' ').append(engine.getScore()).append(' ').append(engine.getFood())
+                .append(' ').append(engine.getPowerUp() != null ? engine.getPowerUp().getPosition() : null)
+                .append(' ').append(engine.getActiveEffects()).append(' ').append(engine.getDirection())
+                .append(' ').append(engine.isGameOver());
+        for (int i = 0; i < engine.getSnake().length(); i++) {
+            state.append(',').append(engine.getSnake().get(i));
+        }
+        return state.toString();
+    }
+
+    @Test
+    void encodeDecodeKeepsEveryField() throws IOException {
+        SnakeEngine engine = newEngine(42);
+        engine.setSpawnWeights(60, new int[]{25, 15});
+        engine.reset(42);
+        Replay replay = play(engine, 1);
+
+        Replay decoded = Replay.decode(replay.encode());
+        assertEquals(replay.getWidth(), decoded.getWidth());
+        assertEquals(replay.getHeight(), decoded.getHeight());
+        assertEquals(replay.getSeed(), decoded.getSeed());
+        assertEquals(replay.getTickMillis(), decoded.getTickMillis());
+        assertEquals(replay.getTotalTicks(), decoded.getTotalTicks());
+        assertEquals(replay.getFinalScore(), decoded.getFinalScore());
+        assertEquals(replay.getEventCount(), decoded.getEventCount());
+        assertArrayEquals(replay.getEvents(), decoded.getEvents());
+        assertNull(decoded.getLevel());
+        assertArrayEquals(replay.encode(), decoded.encode());
+
+        SnakeEngine copy = decoded.createEngine();
+        assertEquals(60, copy.getFoodWeight());
+        assertArrayEquals(new int[]{25, 15}, copy.getPowerUpWeights());
+    }
+
+    @Test
+    void longPausesNeedMultiByteDeltas() throws IOException {
+        SnakeEngine engine = new SnakeEngine(200, 200, 7);
+        engine.setTimings(100_000, 30);
+        engine.reset(7);
+        ReplayRecorder recorder = new ReplayRecorder();
+        recorder.start(engine, 80);
+        // straight runs of 150 and 20000 ticks between turns, deltas of two and three varint bytes
+        Direction[] turns = {Direction.DOWN, Direction.RIGHT, Direction.UP};
+        long[] gaps = {150, 20_000, 3};
+        for (int i = 0; i < turns.length && !engine.isGameOver(); i++) {
+            for (long t = 1; t < gaps[i] && !engine.isGameOver(); t++) {
+                engine.step(null);
+            }
+            recorder.record(engine.getTick() + 1, turns[i]);
+            engine.step(turns[i]);
+        }
+        Replay replay = Replay.decode(recorder.finish(engine).encode());
+        assertEquals(3, replay.getEventCount());
+        ReplayPlayer player = new ReplayPlayer(replay);
+        player.runToEnd();
+        assertTrue(player.matchesRecording());
+        assertEquals(state(engine), state(player.getEngine()));
+    }
+
+    @Test
+    void playbackReproducesTheGame() throws IOException {
+        for (int game = 0; game < GAMES; game++) {
+            SnakeEngine engine = newEngine(game * 31L);
+            Replay replay = Replay.decode(play(engine, game).encode());
+            ReplayPlayer player = new ReplayPlayer(replay);
+            player.runToEnd();
+            assertTrue(player.matchesRecording(), "game " + game);
+            assertEquals(state(engine), state(player.getEngine()), "game " + game);
+        }
+    }
+
+    @Test
+    void seekingAcrossSnapshotsMatchesStraightPlayback() throws IOException {
+        GameRandom targets = new GameRandom(3);
+        for (int game = 0; game < GAMES; game++) {
+            Replay replay = Replay.decode(play(newEngine(game * 17L), game + 100).encode());
+            ReplayPlayer player = new ReplayPlayer(replay, 16);
+            for (int i = 0; i < 10; i++) {
+                long target = targets.nextInt((int) replay.getTotalTicks() + 1);
+                player.seek(target); // backwards and forwards, restoring whichever snapshot is closest
+                ReplayPlayer straight = new ReplayPlayer(replay, Integer.MAX_VALUE);
+                while (straight.getTick() < target && straight.step()) {
+                    // one tick at a time from the start
+                }
+                assertEquals(state(straight.getEngine()), state(player.getEngine()), "game " + game + " tick " + target);
+            }
+            player.seek(replay.getTotalTicks());
+            assertTrue(player.matchesRecording(), "game " + game);
+        }
+    }
+
+    @Test
+    void levelIsEmbeddedInTheReplay() throws IOException {
+        Level level = Level.fromText("ring", List.of(
+                "##########",
+                "#>.......#",
+                "#..~~....#",
+                "#....A...#",
+                "#........#",
+                "#...a....#",
+                "##########"));
+        SnakeEngine engine = new SnakeEngine(level, 5);
+        engine.setTimings(40, 30);
+        engine.reset(5);
+        Replay replay = Replay.decode(play(engine, 5).encode());
+        assertNotNull(replay.getLevel());
+        assertArrayEquals(level.encode(), replay.getLevel().encode());
+        ReplayPlayer player = new ReplayPlayer(replay);
+        player.runToEnd();
+        assertTrue(player.matchesRecording());
+        assertEquals(state(engine), state(player.getEngine()));
+    }
+
+    @Test
+    void brokenDataIsRejected() throws IOException {
+        byte[] data = play(newEngine(9), 9).encode();
+        assertThrows(IOException.class, () -> Replay.decode(new byte[]{'N', 'O', 'P', 'E', 1}));
+        assertThrows(IOException.class, () -> Replay.decode(Arrays.copyOf(data, 12)));
+        byte[] future = data.clone();
+        future[4] = 99; // version
+        assertThrows(IOException.class, () -> Replay.decode(future));
+    }
+}
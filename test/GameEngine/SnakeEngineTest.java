@@ -0,0 +1,56 @@
+package GameEngine;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// collisions are checked before the tail moves, a fatal step leaves the snake as it was
+class SnakeEngineTest {
+
+    @Test
+    void singleSegmentSnakeDiesAgainstAWallWithItsSegment() throws IOException {
+        Level level = Level.fromText("wall", List.of(
+                "#####",
+                "#>#.#",
+                "#####"));
+        SnakeEngine engine = new SnakeEngine(level, 1);
+        engine.reset(1);
+        int start = level.getStartCell();
+        engine.step(null);
+        assertTrue(engine.isGameOver());
+        assertEquals(1, engine.getSnake().length());
+        assertEquals(start, engine.getSnake().headCell());
+        assertEquals(start, engine.getSnake().tailCell());
+    }
+
+    @Test
+    void runningIntoTheBodyKeepsEverySegment() {
+        SnakeEngine engine = new SnakeEngine(10, 10, 2);
+        // head at (2,1) with the body bending back under it, turning up runs into (2,0)
+        int[] cells = {2 * 10 + 1, 1 * 10 + 1, 1 * 10, 2 * 10, 3 * 10};
+        engine.placeSnake(cells, cells.length, Direction.RIGHT);
+        engine.step(Direction.UP);
+        assertTrue(engine.isGameOver());
+        assertEquals(cells.length, engine.getSnake().length());
+        assertEquals(cells[0], engine.getSnake().headCell());
+        assertEquals(cells[cells.length - 1], engine.getSnake().tailCell());
+    }
+
+    @Test
+    void followingTheTailIsNotACollision() {
+        SnakeEngine engine = new SnakeEngine(10, 10, 3);
+        // a closed square, the head moves down onto the cell the tail leaves in the same step
+        int[] cells = {1 * 10, 0, 1, 1 * 10 + 1};
+        engine.placeSnake(cells, cells.length, Direction.RIGHT);
+        engine.step(Direction.DOWN);
+        assertFalse(engine.isGameOver());
+        assertEquals(cells.length, engine.getSnake().length());
+        assertEquals(1 * 10 + 1, engine.getSnake().headCell());
+        assertEquals(1, engine.getSnake().tailCell());
+    }
+}
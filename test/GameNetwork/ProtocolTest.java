@@ -0,0 +1,262 @@
+package GameNetwork;
+
+import GameEngine.Direction;
+import GameEngine.GameRandom;
+import GameEngine.SnakeBody;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// the server sends every client the same deltas, a client that joins late gets a keyframe and has to end up
+// with exactly the board the others built from the deltas
+class ProtocolTest {
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    // everything the client paints, tick by tick
+    private static String state(ClientBoard board) {
+        StringBuilder state = new StringBuilder();
+        state.append(board.getTick()).append(' ').append(board.getFoodCell());
+        for (int slot = 0; slot < board.getSlotCount(); slot++) {
+            if (!board.isPresent(slot)) {
+                continue;
+            }
+            SnakeBody body = board.getBody(slot);
+            state.append(" | ").append(slot).append(' ').append(board.getScore(slot)).append(':');
+            for (int i = 0; i < body.length(); i++) {
+                state.append(' ').append(body.get(i));
+            }
+        }
+        return state.toString();
+    }
+
+    private static ByteBuffer frame(byte type, long... values) {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        buffer.put(type);
+        for (long value : values) {
+            Protocol.putVarLong(buffer, value);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    // a client that records its board after every frame and turns at random now and then
+    private static class Recorder {
+        final Map<Long, String> states = new ConcurrentHashMap<>();
+        final GameClient client;
+
+        Recorder(int port, long seed) throws IOException {
+            GameRandom random = new GameRandom(seed);
+            AtomicReference<GameClient> self = new AtomicReference<>();
+            client = new GameClient("localhost", port, () -> {
+                GameClient client = self.get();
+                if (client == null) {
+                    return;
+                }
+                ClientBoard board = client.getBoard();
+                synchronized (board) {
+                    states.put(board.getTick(), state(board));
+                }
+                if (random.nextInt(4) == 0) {
+                    client.sendTurn(Direction.values()[random.nextInt(4)]);
+                }
+            });
+            self.set(client);
+        }
+
+        long tick() {
+            return client.getBoard().getTick();
+        }
+    }
+
+    private static void await(String what, java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out waiting for " + what);
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void varIntsRoundTrip() {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        int[] ints = {0, 1, 127, 128, 16_383, 16_384, 2_097_151, 2_097_152, Integer.MAX_VALUE, -1};
+        long[] longs = {0, 300, 1L << 35, Long.MAX_VALUE, -1};
+        for (int value : ints) {
+            Protocol.putVarInt(buffer, value);
+        }
+        for (long value : longs) {
+            Protocol.putVarLong(buffer, value);
+        }
+        buffer.flip();
+        for (int value : ints) {
+            assertEquals(value, Protocol.getVarInt(buffer));
+        }
+        for (long value : longs) {
+            assertEquals(value, Protocol.getVarLong(buffer));
+        }
+        assertFalse(buffer.hasRemaining());
+        ByteBuffer small = ByteBuffer.allocate(4);
+        Protocol.putVarInt(small, 127);
+        assertEquals(1, small.position()); // one byte up to 127
+    }
+
+    @Test
+    void deltasMoveTheBoardOnFromAKeyframe() {
+        ClientBoard board = new ClientBoard();
+        board.apply(frame(Protocol.WELCOME, 2, 10, 8));
+        assertEquals(1, board.getPlayer());
+        assertEquals(10, board.getWidth());
+        assertEquals(8, board.getHeight());
+
+        // tick 7, food on cell 30, two snakes: slot 0 with cells 12, 11 head first and slot 1 dead
+        ByteBuffer keyframe = ByteBuffer.allocate(64);
+        keyframe.put(Protocol.KEYFRAME);
+        Protocol.putVarLong(keyframe, 7);
+        Protocol.putVarInt(keyframe, 31);
+        Protocol.putVarInt(keyframe, 2);
+        Protocol.putVarInt(keyframe, 0);
+        keyframe.put((byte) 1);
+        Protocol.putVarInt(keyframe, 3);
+        Protocol.putVarInt(keyframe, 2);
+        Protocol.putVarInt(keyframe, 12);
+        Protocol.putVarInt(keyframe, 11);
+        Protocol.putVarInt(keyframe, 1);
+        keyframe.put((byte) 0);
+        Protocol.putVarInt(keyframe, 5);
+        Protocol.putVarInt(keyframe, 0);
+        keyframe.flip();
+        board.apply(keyframe);
+        assertEquals("7 30 | 0 3: 12 11 | 1 5:", state(board));
+
+        // slot 0 eats, slot 1 respawns and the food moves
+        board.apply(frame(Protocol.TICK, 8, Protocol.HEAD, 0, 30, Protocol.SCORE, 0, 4,
+                Protocol.SPAWN, 1, 50, Protocol.FOOD, 3));
+        assertEquals("8 2 | 0 4: 30 12 11 | 1 0: 50", state(board));
+
+        board.apply(frame(Protocol.TICK, 9, Protocol.TAIL, 0, Protocol.HEAD, 0, 31, Protocol.DIED, 1));
+        assertEquals("9 2 | 0 4: 31 30 12 | 1 0:", state(board));
+
+        // a player that leaves disappears, a slot this client never saw is ignored, food 0 means a full board
+        board.apply(frame(Protocol.TICK, 10, Protocol.LEFT, 1, Protocol.LEFT, 40, Protocol.FOOD, 0));
+        assertEquals("10 -1 | 0 4: 31 30 12", state(board));
+
+        // a new keyframe replaces everything, including snakes it no longer lists
+        ByteBuffer resync = ByteBuffer.allocate(16);
+        resync.put(Protocol.KEYFRAME);
+        Protocol.putVarLong(resync, 20);
+        Protocol.putVarInt(resync, 6);
+        Protocol.putVarInt(resync, 0);
+        resync.flip();
+        board.apply(resync);
+        assertEquals("20 5", state(board));
+    }
+
+    @Test
+    void eventsForSlotsTheKeyframeSkippedAreApplied() {
+        ClientBoard board = new ClientBoard();
+        board.apply(frame(Protocol.WELCOME, 1, 10, 8));
+        // slots 0, 1 and 3 are on the board, slot 2 is not
+        ByteBuffer keyframe = ByteBuffer.allocate(64);
+        keyframe.put(Protocol.KEYFRAME);
+        Protocol.putVarLong(keyframe, 3);
+        Protocol.putVarInt(keyframe, 0);
+        Protocol.putVarInt(keyframe, 3);
+        for (int slot : new int[]{0, 1, 3}) {
+            Protocol.putVarInt(keyframe, slot);
+            keyframe.put((byte) 1);
+            Protocol.putVarInt(keyframe, 0);
+            Protocol.putVarInt(keyframe, 1);
+            Protocol.putVarInt(keyframe, 10 + slot);
+        }
+        keyframe.flip();
+        board.apply(keyframe);
+
+        board.apply(frame(Protocol.TICK, 4, Protocol.TAIL, 2, Protocol.HEAD, 2, 40, Protocol.SCORE, 2, 7));
+        assertEquals("4 -1 | 0 0: 10 | 1 0: 11 | 3 0: 13", state(board));
+        assertEquals(40, board.getBody(2).headCell());
+        assertEquals(7, board.getScore(2));
+        board.apply(frame(Protocol.TICK, 5, Protocol.DIED, 2, Protocol.LEFT, 2, Protocol.LEFT, 100));
+        assertEquals(0, board.getBody(2).length());
+        assertThrows(IllegalArgumentException.class,
+                () -> board.apply(frame(Protocol.TICK, 6, Protocol.HEAD, Protocol.MAX_SLOTS, 1)));
+    }
+
+    @Test
+    void oversizedFramesAreRefused() throws IOException {
+        try (ServerSocket server = new ServerSocket(0)) {
+            Thread sender = new Thread(() -> {
+                try (Socket socket = server.accept()) {
+                    DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                    out.writeInt(Protocol.MAX_FRAME_BYTES + 1);
+                    out.flush();
+                    socket.getInputStream().read(); // hold the connection until the client gives up
+                } catch (IOException ignored) {
+                    // the client closed first
+                }
+            });
+            sender.start();
+            IOException error = assertThrows(IOException.class, () -> new GameClient("localhost", server.getLocalPort(), () -> {
+            }));
+            assertTrue(error.getMessage().contains("frame length"), error.getMessage());
+        }
+    }
+
+    @Test
+    void lateClientsCatchUpFromTheKeyframe() throws IOException, InterruptedException {
+        GameServer server = new GameServer(0, 30, 20, 5);
+        server.start();
+        Recorder first = null;
+        Recorder leaving = null;
+        Recorder late = null;
+        try {
+            first = new Recorder(server.getPort(), 1);
+            leaving = new Recorder(server.getPort(), 2);
+            Recorder firstClient = first;
+            await("the first ticks", () -> firstClient.tick() >= 40);
+            leaving.client.close(); // its snake leaves the board mid-game
+
+            Recorder joined = new Recorder(server.getPort(), 3);
+            late = joined;
+            // the keyframe right after the welcome puts it straight onto the running game
+            await("the keyframe", () -> joined.tick() >= 40);
+            long joinedAt = late.states.keySet().stream().min(Long::compare).orElse(late.tick());
+            await("the late client", () -> joined.tick() >= joinedAt + 150);
+            long last = late.tick();
+            await("the first client", () -> firstClient.tick() >= last);
+
+            int compared = 0;
+            for (Map.Entry<Long, String> entry : late.states.entrySet()) {
+                if (entry.getKey() <= joinedAt) {
+                    // the keyframe is taken between ticks, it already shows joins and leaves that the next tick
+                    // frame repeats, so it only has to agree with the others from that frame on
+                    continue;
+                }
+                String expected = first.states.get(entry.getKey());
+                if (expected != null) {
+                    assertEquals(expected, entry.getValue(), "tick " + entry.getKey());
+                    compared++;
+                }
+            }
+            assertTrue(compared >= 100, "only " + compared + " ticks seen by both clients");
+        } finally {
+            for (Recorder recorder : new Recorder[]{first, leaving, late}) {
+                if (recorder != null) {
+                    recorder.client.close();
+                }
+            }
+            server.stop();
+        }
+    }
+}
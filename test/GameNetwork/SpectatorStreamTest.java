@@ -0,0 +1,118 @@
+package GameNetwork;
+
+import GameEngine.Direction;
+import GameEngine.GameRandom;
+import GameEngine.PowerUp;
+import GameEngine.SnakeEngine;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// a spectator reading the stream back has to see the board the game had after every tick it was sent
+class SpectatorStreamTest {
+    private static final long MAX_TICKS = 3000;
+
+    private static String state(SnakeEngine engine) {
+        PowerUp powerUp = engine.getPowerUp();
+        StringBuilder state = new StringBuilder();
+        state.append(engine.getTick()).append(' ').append(engine.getScore()).append(' ').append(engine.isGameOver())
+                .append(' ').append(engine.getFood() != null ? engine.getFood().x * engine.getHeight() + engine.getFood().y : -1)
+                .append(' ').append(powerUp != null ? powerUp.getPosition().x * engine.getHeight() + powerUp.getPosition().y : -1)
+                .append(' ').append(SpectatorStream.kind(powerUp)).append(' ').append(engine.getActiveEffects());
+        for (int i = 0; i < engine.getSnake().length(); i++) {
+            state.append(',').append(engine.getSnake().get(i));
+        }
+        return state.toString();
+    }
+
+    private static String state(SpectatorReader reader) {
+        StringBuilder state = new StringBuilder();
+        state.append(reader.getTick()).append(' ').append(reader.getScore()).append(' ').append(reader.isGameOver())
+                .append(' ').append(reader.getFoodCell()).append(' ').append(reader.getPowerUpCell())
+                .append(' ').append(reader.getPowerUpKind()).append(' ').append(reader.getActiveEffects());
+        for (int i = 0; i < reader.getSnake().length(); i++) {
+            state.append(',').append(reader.getSnake().get(i));
+        }
+        return state.toString();
+    }
+
+    // plays a game with random turns, sending every sendEvery-th tick, and returns the states that were sent
+    private static List<String> play(SpectatorStream stream, long seed, int sendEvery) {
+        SnakeEngine engine = new SnakeEngine(30, 20, seed);
+        engine.setTimings(40, 30);
+        engine.reset(seed);
+        GameRandom input = new GameRandom(seed);
+        List<String> sent = new ArrayList<>();
+        stream.onTick(engine);
+        sent.add(state(engine));
+        while (!engine.isGameOver() && engine.getTick() < MAX_TICKS) {
+            engine.step(input.nextInt(5) == 0 ? Direction.values()[input.nextInt(4)] : null);
+            if (engine.getTick() % sendEvery == 0 || engine.isGameOver()) {
+                stream.onTick(engine);
+                sent.add(state(engine));
+            }
+        }
+        stream.close();
+        assertEquals(0, stream.getDropped());
+        return sent;
+    }
+
+    private static SpectatorReader readAll(byte[] data, List<String> sent) throws IOException {
+        SpectatorReader reader = new SpectatorReader(new ByteArrayInputStream(data));
+        assertEquals(30, reader.getWidth());
+        assertEquals(20, reader.getHeight());
+        for (int i = 0; i < sent.size(); i++) {
+            assertTrue(reader.next(), "frame " + i + " missing");
+            assertEquals(sent.get(i), state(reader), "frame " + i);
+        }
+        assertFalse(reader.next());
+        return reader;
+    }
+
+    @Test
+    void deltasFollowTheGame() throws IOException {
+        for (boolean compress : new boolean[]{false, true}) {
+            for (long seed = 0; seed < 10; seed++) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                List<String> sent = play(new SpectatorStream(bytes, compress, 30, 20, SpectatorStream.DEFAULT_BUFFER_BYTES), seed, 1);
+                SpectatorReader reader = readAll(bytes.toByteArray(), sent);
+                assertEquals(1, reader.getKeyframes(), "only the first frame needs the whole board");
+            }
+        }
+    }
+
+    @Test
+    void skippedTicksSendKeyframes() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        List<String> sent = play(new SpectatorStream(bytes, true, 30, 20, SpectatorStream.DEFAULT_BUFFER_BYTES), 4, 3);
+        SpectatorReader reader = readAll(bytes.toByteArray(), sent);
+        assertTrue(reader.getKeyframes() > 1);
+    }
+
+    @Test
+    void compressedStreamCutOffBetweenFramesEndsCleanly() throws IOException {
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        List<String> sent = play(new SpectatorStream(plain, false, 30, 20, SpectatorStream.DEFAULT_BUFFER_BYTES), 6, 1);
+        byte[] data = plain.toByteArray();
+
+        // same frames behind a sync flush but without the deflate trailer, like a game that was killed
+        ByteArrayOutputStream cut = new ByteArrayOutputStream();
+        int header = SpectatorStream.MAGIC.length + 1;
+        cut.write(data, 0, header);
+        cut.write(1);
+        DeflaterOutputStream deflater = new DeflaterOutputStream(cut, new Deflater(Deflater.BEST_SPEED), 8192, true);
+        deflater.write(data, header + 1, data.length - header - 1);
+        deflater.flush();
+        readAll(cut.toByteArray(), sent);
+    }
+}
@@ -0,0 +1,118 @@
+package MainGame;
+
+import GameEngine.Autopilot;
+import GameEngine.Direction;
+import GameEngine.SnakeEngine;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Dimension;
+import java.awt.EventQueue;
+import java.awt.Graphics2D;
+import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// a warmed-up key press, game tick and the paint after it must not allocate, garbage on this path shows up as GC hitches
+// the budget is under a byte per tick on average: the replay buffer doubling or a Java2D cache filling can cost a few
+// kilobytes over a run, while a single object per tick would be 16 bytes a tick or more
+class TickAllocationTest {
+    private static final int WARMUP_TICKS = 50_000;
+    private static final int MEASURED_TICKS = 100_000;
+    private static final long BYTE_BUDGET = MEASURED_TICKS;
+
+    // the labels belong to Swing and only change on score events, the board itself is what is measured
+    private static class SilentScorePanel extends ScorePanel {
+        @Override
+        public void updateScore(int newScore) {
+        }
+
+        @Override
+        public void checkHighScore(int configHighScore) {
+        }
+
+        @Override
+        public void updatePowerUp(String powerUp) {
+        }
+
+        @Override
+        public void showEffects(SnakeEngine engine) {
+        }
+    }
+
+    @Test
+    void tickAndPaintAllocateNothing() throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "allocation counters not available on this JVM");
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        long[] allocated = new long[1];
+        EventQueue.invokeAndWait(() -> {
+            GameBoard board = new GameBoard(new SilentScorePanel(), null);
+            try {
+                board.setPaused(true); // the test drives the ticks itself
+                Dimension size = board.getPreferredSize();
+                board.setSize(size);
+                BufferedImage image = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_RGB);
+                Graphics2D g = image.createGraphics();
+                Player player = new Player(board);
+
+                play(board, player, g, WARMUP_TICKS, threads);
+                allocated[0] = play(board, player, g, MEASURED_TICKS, threads);
+                g.dispose();
+            } finally {
+                board.dispose();
+            }
+        });
+        assertTrue(allocated[0] < BYTE_BUDGET, allocated[0] + " bytes allocated over " + MEASURED_TICKS + " ticks");
+    }
+
+    // the autopilot picks the turns, they reach the board as key presses so they go through its input queue
+    private static class Player {
+        private final GameBoard board;
+        private final Autopilot autopilot;
+        private final KeyEvent[] keys = new KeyEvent[Direction.values().length]; // AWT's objects, not the board's
+
+        Player(GameBoard board) {
+            this.board = board;
+            SnakeEngine engine = board.getEngine();
+            this.autopilot = new Autopilot(engine.getWidth(), engine.getHeight());
+            keys[Direction.UP.ordinal()] = new KeyEvent(board, KeyEvent.KEY_PRESSED, 0, 0, KeyEvent.VK_UP, KeyEvent.CHAR_UNDEFINED);
+            keys[Direction.DOWN.ordinal()] = new KeyEvent(board, KeyEvent.KEY_PRESSED, 0, 0, KeyEvent.VK_DOWN, KeyEvent.CHAR_UNDEFINED);
+            keys[Direction.LEFT.ordinal()] = new KeyEvent(board, KeyEvent.KEY_PRESSED, 0, 0, KeyEvent.VK_LEFT, KeyEvent.CHAR_UNDEFINED);
+            keys[Direction.RIGHT.ordinal()] = new KeyEvent(board, KeyEvent.KEY_PRESSED, 0, 0, KeyEvent.VK_RIGHT, KeyEvent.CHAR_UNDEFINED);
+        }
+
+        // the key to press before the next tick, null to keep going straight
+        KeyEvent nextKey() {
+            SnakeEngine engine = board.getEngine();
+            Direction turn = autopilot.decide(engine);
+            return turn != null && turn != engine.getDirection() ? keys[turn.ordinal()] : null;
+        }
+    }
+
+    // bytes allocated by key presses, ticks and paints while a game is running, the game over and restart in between
+    // don't count, and neither does the autopilot standing in for the player
+    private static long play(GameBoard board, Player player, Graphics2D g, int ticks, com.sun.management.ThreadMXBean threads) {
+        long total = 0;
+        for (int i = 0; i < ticks; i++) {
+            if (board.getEngine().isGameOver()) {
+                board.resetGame();
+            }
+            KeyEvent key = player.nextKey();
+            long before = threads.getCurrentThreadAllocatedBytes();
+            if (key != null) {
+                board.keyPressed(key);
+            }
+            board.actionPerformed(null);
+            board.paintComponent(g);
+            long after = threads.getCurrentThreadAllocatedBytes();
+            if (!board.getEngine().isGameOver()) {
+                total += after - before;
+            }
+        }
+        return total;
+    }
+}